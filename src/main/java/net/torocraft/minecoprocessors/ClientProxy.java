@@ -6,6 +6,7 @@ import net.minecraft.util.text.TextComponentTranslation;
 import net.minecraftforge.fml.common.event.FMLInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLPreInitializationEvent;
 import net.torocraft.minecoprocessors.blocks.BlockMinecoprocessor;
+import net.torocraft.minecoprocessors.blocks.BlockSharedMemory;
 
 public class ClientProxy extends CommonProxy {
 
@@ -35,6 +36,7 @@ public class ClientProxy extends CommonProxy {
   public void init(FMLInitializationEvent e) {
     super.init(e);
     BlockMinecoprocessor.registerRenders();
+    BlockSharedMemory.registerRenders();
   }
 
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package net.torocraft.minecoprocessors;
 import net.minecraftforge.fml.common.event.FMLInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLPreInitializationEvent;
 import net.torocraft.minecoprocessors.blocks.TileEntityMinecoprocessor;
+import net.torocraft.minecoprocessors.blocks.TileEntitySharedMemory;
 import net.torocraft.minecoprocessors.gui.MinecoprocessorGuiHandler;
 import net.torocraft.minecoprocessors.network.MessageBookCodeData;
 import net.torocraft.minecoprocessors.network.MessageEnableGuiUpdates;
@@ -30,6 +31,7 @@ public class CommonProxy {
     MessageProcessorAction.init(packetId++);
     MessageBookCodeData.init(packetId++);
     TileEntityMinecoprocessor.init();
+    TileEntitySharedMemory.init();
     MinecoprocessorGuiHandler.init();
   }
 
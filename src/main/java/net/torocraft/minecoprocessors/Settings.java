@@ -10,4 +10,88 @@ public class Settings {
   @Comment("The maximum number of characters a single line in the code book may have.")
   @RangeInt(min = 1, max = 80)
   public static int maxColumnsPerLine = 18;
+
+  public enum ExecutionMode {
+    SERIAL, LOCKSTEP, PARALLEL, PIPELINED
+  }
+
+  @Comment({"How the server executes processors.",
+      "SERIAL: every processor executes on its own during its tile entity update.",
+      "LOCKSTEP: processors running identical programs are stepped together at the end of the world tick, decoding each instruction once per group.",
+      "PARALLEL: processors execute on a thread pool at the end of the world tick, port changes are then committed on the server thread in a fixed order.",
+      "PIPELINED: processors execute on a worker thread during the following world tick, their port changes are committed at the end of it."})
+  public static ExecutionMode executionMode = ExecutionMode.SERIAL;
+
+  @Comment("The number of threads used by the PARALLEL execution mode, 0 uses one thread per available core. Takes effect after a restart.")
+  @RangeInt(min = 0, max = 64)
+  public static int parallelThreads = 0;
+
+  @Comment("The highest clock an overclocked processor can be set to, in instructions per tick.")
+  @RangeInt(min = 1, max = 256)
+  public static int maxInstructionsPerTick = 8;
+
+  @Comment("The lowest clock a processor can be set to, in ticks per instruction.")
+  @RangeInt(min = 2, max = 1200)
+  public static int maxTicksPerInstruction = 64;
+
+  @Comment({"The number of cores of an overclocked processor. Additional cores are started by the FORK instruction, they share the memory and",
+      "the ports of the processor and execute one after the other as part of the same processor update."})
+  @RangeInt(min = 1, max = 4)
+  public static int overclockedCores = 4;
+
+  @Comment({"The address space of an overclocked processor in KiB, addresses from 128 up are reached through 16 bit pointers like [a:b].",
+      "Memory is only allocated and saved for the 256 byte pages a program actually writes to, 0 disables the expanded memory."})
+  @RangeInt(min = 0, max = 64)
+  public static int overclockedMemory = 64;
+
+  @Comment({"The time in microseconds the processors of a world may take per tick while the server is running behind, 0 disables the limit.",
+      "Processors over the budget are throttled in turns until the server is back to full speed."})
+  @RangeInt(min = 0, max = 50000)
+  public static int processorTimeBudget = 5000;
+
+  @Comment({"Spreads processors that run slower than one instruction per tick over the ticks of their clock period instead of running all of",
+      "them on the same ticks. Processors connected to each other through their ports stay in step."})
+  public static boolean staggeredTicking = false;
+
+  public enum ProximityPolicy {
+    FULL_SPEED, REDUCED_CLOCK, CATCH_UP
+  }
+
+  @Comment({"How processors run when no player is within proximityDistance blocks of their chunk.",
+      "FULL_SPEED: they run as if a player was near.",
+      "REDUCED_CLOCK: they run farClockDivider times slower.",
+      "CATCH_UP: they stop, once a player comes near they run the instructions they missed, up to maxCatchUpInstructions.",
+      "Processors that drive a block through an output port never stop, they run at the reduced clock instead."})
+  public static ProximityPolicy proximityPolicy = ProximityPolicy.FULL_SPEED;
+
+  @Comment("The distance in blocks a player has to be within for the processors of a chunk to run at full speed.")
+  @RangeInt(min = 16, max = 1024)
+  public static int proximityDistance = 128;
+
+  @Comment("How many times slower processors run when no player is near.")
+  @RangeInt(min = 2, max = 100)
+  public static int farClockDivider = 10;
+
+  @Comment({"Lets processors catch up on the time their chunk was unloaded, up to maxCatchUpInstructions. The missed instructions run at once",
+      "in the first update after the chunk loads, only the resulting output ports are applied. Meant for counters and clocks, programs that",
+      "depend on their inputs changing over time will not behave as if they had been running."})
+  public static boolean catchUpOnLoad = false;
+
+  @Comment("The most instructions a processor runs at once to catch up on the time it was stopped or unloaded.")
+  @RangeInt(min = 0, max = 100000)
+  public static int maxCatchUpInstructions = 1000;
+
+  @Comment({"The minimum number of ticks a processor block shows its active or sleeping look before it may switch again.",
+      "Processors that sleep and wake often then cause fewer block updates and chunk re-renders, 0 switches immediately."})
+  @RangeInt(min = 0, max = 200)
+  public static int activeStateHoldTicks = 10;
+
+  @Comment({"Links the facing ports of processors placed directly next to each other. A linked port receives the other processor's output in",
+      "the next tick, or the same tick with clusterOrdering, and analog inputs get all eight bits instead of the four bits of a redstone signal."})
+  public static boolean directPortLinks = true;
+
+  @Comment({"Updates processors that drive linked processors before the processors they drive, so a signal passes through a chain of linked",
+      "processors within one tick instead of one tick per processor. Cycles are broken at the processor with the lowest position.",
+      "Linked processors are executed on the server thread in this order regardless of the execution mode."})
+  public static boolean clusterOrdering = false;
 }
@@ -34,6 +34,7 @@ import net.minecraftforge.event.RegistryEvent;
 import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.torocraft.minecoprocessors.Minecoprocessors;
+import net.torocraft.minecoprocessors.Settings;
 import net.torocraft.minecoprocessors.gui.MinecoprocessorGuiHandler;
 import net.torocraft.minecoprocessors.items.IMetaBlockName;
 import net.torocraft.minecoprocessors.items.ItemBlockMeta;
@@ -198,6 +199,15 @@ public class BlockMinecoprocessor extends BlockRedstoneDiode implements ITileEnt
       return;
     }
 
+    updateActiveState(world, pos, state);
+  }
+
+  /**
+   * Shows through the ACTIVE property whether the processor is running. A change less than {@link Settings#activeStateHoldTicks} after
+   * the previous one is held back by the {@link ProcessorScheduler}, which calls this again once the hold is over. The block tick itself
+   * is never delayed, as it also samples the inputs.
+   */
+  static void updateActiveState(World world, BlockPos pos, IBlockState state) {
     TileEntityMinecoprocessor te = (TileEntityMinecoprocessor) world.getTileEntity(pos);
 
     boolean changed = false;
@@ -213,33 +223,39 @@ public class BlockMinecoprocessor extends BlockRedstoneDiode implements ITileEnt
       changed = true;
     }
 
-    if (changed) {
-      world.setBlockState(pos, state, 2);
+    if (!changed) {
+      return;
+    }
+
+    if (te.getActiveHoldRemaining() > 0) {
+      ProcessorScheduler.get(world).holdActiveState(te);
+      return;
     }
+
+    world.setBlockState(pos, state, 2);
+    te.onActiveStateChanged();
   }
 
   public static void updateInputPorts(World world, BlockPos pos, IBlockState state) {
     if (world.isRemote) {
       return;
     }
-    EnumFacing facing = state.getValue(FACING).getOpposite();
-
-    int e = calculateInputStrength(world, pos.offset(EnumFacing.EAST), EnumFacing.EAST);
-    int w = calculateInputStrength(world, pos.offset(EnumFacing.WEST), EnumFacing.WEST);
-    int n = calculateInputStrength(world, pos.offset(EnumFacing.NORTH), EnumFacing.NORTH);
-    int s = calculateInputStrength(world, pos.offset(EnumFacing.SOUTH), EnumFacing.SOUTH);
-
-    int[] values = new int[4];
-
-    values[RedstoneUtil.convertFacingToPortIndex(facing, EnumFacing.NORTH)] = n;
-    values[RedstoneUtil.convertFacingToPortIndex(facing, EnumFacing.SOUTH)] = s;
-    values[RedstoneUtil.convertFacingToPortIndex(facing, EnumFacing.WEST)] = w;
-    values[RedstoneUtil.convertFacingToPortIndex(facing, EnumFacing.EAST)] = e;
+    TileEntity te = world.getTileEntity(pos);
+    if (te instanceof TileEntityMinecoprocessor) {
+      ((TileEntityMinecoprocessor) te).updateInputPorts(state.getValue(FACING).getOpposite());
+    }
+  }
 
-    ((TileEntityMinecoprocessor) world.getTileEntity(pos)).updateInputPorts(values);
+  @Override
+  public void neighborChanged(IBlockState state, World worldIn, BlockPos pos, Block blockIn, BlockPos fromPos) {
+    TileEntity te = worldIn.getTileEntity(pos);
+    if (te instanceof TileEntityMinecoprocessor) {
+      ((TileEntityMinecoprocessor) te).markInputStale(fromPos);
+    }
+    super.neighborChanged(state, worldIn, pos, blockIn, fromPos);
   }
 
-  protected static int calculateInputStrength(World worldIn, BlockPos pos, EnumFacing enumfacing) {
+  static int calculateInputStrength(World worldIn, BlockPos pos, EnumFacing enumfacing) {
     IBlockState adjacentState = worldIn.getBlockState(pos);
     Block block = adjacentState.getBlock();
 
@@ -278,29 +294,8 @@ public class BlockMinecoprocessor extends BlockRedstoneDiode implements ITileEnt
 
   @Override
   public int getWeakPower(IBlockState state, IBlockAccess blockAccess, BlockPos pos, EnumFacing side) {
-    TileEntityMinecoprocessor te = ((TileEntityMinecoprocessor) blockAccess.getTileEntity(pos));
-
-    if (te.getWorld().isRemote) {
-      return 0;
-    }
-
-    if (RedstoneUtil.isFrontPort(state, side)) {
-      return RedstoneUtil.portToPower(te.getFrontPortSignal());
-    }
-
-    if (RedstoneUtil.isBackPort(state, side)) {
-      return RedstoneUtil.portToPower(te.getBackPortSignal());
-    }
-
-    if (RedstoneUtil.isLeftPort(state, side)) {
-      return RedstoneUtil.portToPower(te.getLeftPortSignal());
-    }
-
-    if (RedstoneUtil.isRightPort(state, side)) {
-      return RedstoneUtil.portToPower(te.getRightPortSignal());
-    }
-
-    return 0;
+    TileEntity te = blockAccess.getTileEntity(pos);
+    return te instanceof TileEntityMinecoprocessor ? ((TileEntityMinecoprocessor) te).getSidePower(side) : 0;
   }
 
   @Override
@@ -349,6 +344,12 @@ public class BlockMinecoprocessor extends BlockRedstoneDiode implements ITileEnt
       InventoryHelper.dropInventoryItems(worldIn, pos, (TileEntityMinecoprocessor) tileentity);
     }
     super.breakBlock(worldIn, pos, state);
+
+    if (Settings.staggeredTicking) {
+      for (EnumFacing side : EnumFacing.HORIZONTALS) {
+        TileEntityMinecoprocessor.resetPhases(worldIn, pos.offset(side));
+      }
+    }
   }
 
   @Override
@@ -0,0 +1,61 @@
+package net.torocraft.minecoprocessors.blocks;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.ITileEntityProvider;
+import net.minecraft.block.material.Material;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.block.model.ModelResourceLocation;
+import net.minecraft.creativetab.CreativeTabs;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemBlock;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.world.World;
+import net.minecraftforge.event.RegistryEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.torocraft.minecoprocessors.Minecoprocessors;
+
+/**
+ * Memory block shared by the processors placed next to it, each of them sees the memory at the addresses right above its own stack.
+ */
+@Mod.EventBusSubscriber
+public class BlockSharedMemory extends Block implements ITileEntityProvider {
+
+  public static final String NAME = "shared_memory";
+
+  private static ResourceLocation REGISTRY_NAME = new ResourceLocation(Minecoprocessors.MODID, NAME);
+
+  public static BlockSharedMemory INSTANCE = (BlockSharedMemory) new BlockSharedMemory()
+      .setUnlocalizedName(NAME)
+      .setRegistryName(REGISTRY_NAME);
+
+  public static ItemBlock ITEM_INSTANCE = (ItemBlock) new ItemBlock(INSTANCE)
+      .setRegistryName(REGISTRY_NAME);
+
+  @SubscribeEvent
+  public static void initBlock(final RegistryEvent.Register<Block> event) {
+    event.getRegistry().register(INSTANCE);
+  }
+
+  @SubscribeEvent
+  public static void initItem(final RegistryEvent.Register<Item> event) {
+    event.getRegistry().register(ITEM_INSTANCE);
+  }
+
+  public static void registerRenders() {
+    ModelResourceLocation model = new ModelResourceLocation(REGISTRY_NAME.toString(), "inventory");
+    Minecraft.getMinecraft().getRenderItem().getItemModelMesher().register(ITEM_INSTANCE, 0, model);
+  }
+
+  public BlockSharedMemory() {
+    super(Material.IRON);
+    setHardness(1.5f);
+    setCreativeTab(CreativeTabs.REDSTONE);
+  }
+
+  @Override
+  public TileEntity createNewTileEntity(World worldIn, int meta) {
+    return new TileEntitySharedMemory();
+  }
+}
@@ -0,0 +1,71 @@
+package net.torocraft.minecoprocessors.blocks;
+
+import net.minecraft.server.MinecraftServer;
+import net.torocraft.minecoprocessors.Settings;
+
+/**
+ * Keeps the time the processors of one world take per tick within {@link Settings#processorTimeBudget} while the server is running behind.
+ *
+ * Every tick adds the budget to a credit and the time actually spent is taken off again, so a tick that overran is paid back by the
+ * following ones and time left over in a cheap tick is carried over, up to a few ticks' worth. From the credit and the average cost of
+ * executing a processor the governor tells the scheduler how many processors it may execute; the scheduler hands these out round-robin so
+ * throttling is spread evenly. Once the server is back to full speed every processor is updated again.
+ */
+class ProcessorGovernor {
+
+  private static final long TICK_NANOS = 50_000_000L;
+  private static final long RECOVERED_NANOS = 45_000_000L;
+  private static final int COST_SMOOTHING = 8;
+  private static final int MAX_CREDIT_TICKS = 4;
+
+  private long credit;
+  private long costPerUpdate;
+  private boolean engaged;
+
+  /**
+   * returns how many processors may execute in this tick, {@link Integer#MAX_VALUE} when there is no limit
+   */
+  int allowance(MinecraftServer server) {
+    long budget = Settings.processorTimeBudget * 1000L;
+    engaged = budget > 0 && isBehind(server);
+
+    if (!engaged) {
+      credit = budget;
+      return Integer.MAX_VALUE;
+    }
+
+    credit = Math.min(credit + budget, budget * MAX_CREDIT_TICKS);
+    if (credit <= 0) {
+      return 0;
+    }
+    if (costPerUpdate == 0) {
+      return Integer.MAX_VALUE;
+    }
+    return (int) Math.max(1, Math.min(Integer.MAX_VALUE, credit / costPerUpdate));
+  }
+
+  /**
+   * records the time spent on the processors of this tick and how many of them executed
+   */
+  void spent(long nanos, int executed) {
+    if (engaged) {
+      credit -= nanos;
+    }
+    if (executed > 0) {
+      long cost = nanos / executed;
+      costPerUpdate = costPerUpdate == 0 ? cost : costPerUpdate + (cost - costPerUpdate) / COST_SMOOTHING;
+    }
+  }
+
+  private boolean isBehind(MinecraftServer server) {
+    if (server == null) {
+      return false;
+    }
+    long total = 0;
+    for (long tickTime : server.tickTimeArray) {
+      total += tickTime;
+    }
+    long mean = total / server.tickTimeArray.length;
+    return mean > (engaged ? RECOVERED_NANOS : TICK_NANOS);
+  }
+}
@@ -0,0 +1,568 @@
+package net.torocraft.minecoprocessors.blocks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import net.minecraft.world.World;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.torocraft.minecoprocessors.Minecoprocessors;
+import net.torocraft.minecoprocessors.Settings;
+import net.torocraft.minecoprocessors.Settings.ExecutionMode;
+import net.torocraft.minecoprocessors.processor.LockstepExecutor;
+import net.torocraft.minecoprocessors.processor.Processor;
+
+/**
+ * Per world processor scheduler. Only active processors are updated each tick; a processor that is waiting, halted or faulted is parked
+ * and costs nothing until something that could make it runnable again (an input or reset port, a GUI action, a reset or a new program)
+ * calls {@link TileEntityMinecoprocessor#activate()}.
+ *
+ * Processors that are due in the current tick register here during their update and are executed together once all of them have been
+ * updated. The time all of this takes is reported to a {@link ProcessorGovernor}, which limits how many processors execute while the
+ * server is running behind.
+ *
+ * Execution only touches processor state. Everything that reaches into the world (output port notifications, block updates, GUI updates)
+ * happens afterwards in {@link TileEntityMinecoprocessor#finishTick(boolean)}, on the server thread and in the order the processors were
+ * scheduled, so the PARALLEL mode produces the same results as running the processors one after another.
+ *
+ * The PIPELINED mode hands the batch to a worker thread at the end of the world tick and commits it at the end of the next one, right
+ * before the processors of that tick are updated, so the batch executes while the server runs the entities, tile entities and block updates
+ * of the next tick. Outputs therefore reach the world one tick later than in the other modes. Inputs arriving in between are staged in the
+ * processors' {@link net.torocraft.minecoprocessors.processor.PortBuffer}s, anything else that needs a processor while it is executing waits
+ * for the batch through {@link #sync()}.
+ *
+ * Writes to {@link TileEntitySharedMemory shared memory} are held back per processor and committed before the processors of the next tick
+ * are updated, so processors sharing a memory see the same contents during a tick no matter which of them executed first or on which
+ * thread. For the same reason the outputs and FIFO values a processor passes to directly linked processors are delivered once every
+ * processor of the tick has executed, unless {@link Settings#clusterOrdering} runs linked processors in order within the tick.
+ */
+@Mod.EventBusSubscriber
+public class ProcessorScheduler {
+
+  private static final Map<World, ProcessorScheduler> SCHEDULERS = new WeakHashMap<>();
+  private static final Comparator<TileEntityMinecoprocessor> BY_POSITION = Comparator.comparing(TileEntityMinecoprocessor::getPos);
+  private static final Comparator<TileEntityMinecoprocessor> BY_RANK = Comparator.comparingInt(te -> te.clusterRank);
+  private static ForkJoinPool pool;
+  private static ExecutorService pipeline;
+
+  private final List<TileEntityMinecoprocessor> active = new ArrayList<>();
+  private final List<TileEntitySharedMemory> memories = new ArrayList<>();
+  private final LockstepExecutor lockstep = new LockstepExecutor();
+  private final ProcessorGovernor governor = new ProcessorGovernor();
+  private final WirelessRegistry wireless = new WirelessRegistry();
+  private final TimerWheel timers = new TimerWheel();
+
+  /**
+   * linked processors with the sides a changed output was pushed to, in the order they were pushed
+   */
+  private final Map<TileEntityMinecoprocessor, Integer> linkPushes = new LinkedHashMap<>();
+
+  /**
+   * processors with FIFO ports to transfer to and from their linked processors, in the order they finished their tick
+   */
+  private final Set<TileEntityMinecoprocessor> fifoTransfers = new LinkedHashSet<>();
+
+  /**
+   * processors with a change of their ACTIVE block state waiting for the hold time of the previous change to end
+   */
+  private final Set<TileEntityMinecoprocessor> heldStates = new LinkedHashSet<>();
+  private long spent;
+  private boolean orderDirty;
+  private boolean rankDirty;
+  private int order;
+  private TileEntityMinecoprocessor resumeFrom;
+  private Batch scheduled = new Batch();
+  private Batch inFlight = new Batch();
+  private Future<?> pending;
+
+  public static ProcessorScheduler get(World world) {
+    return SCHEDULERS.computeIfAbsent(world, w -> new ProcessorScheduler());
+  }
+
+  void activate(TileEntityMinecoprocessor te) {
+    if (!te.active) {
+      te.active = true;
+      active.add(te);
+      if (te.clusterOrder == order) {
+        rankDirty = true;
+      } else if (te.hasLinks()) {
+        orderDirty = true;
+      }
+    }
+  }
+
+  /**
+   * to be called when the links between processors or the direction of linked ports change
+   */
+  void invalidateOrder() {
+    orderDirty = true;
+  }
+
+  void addMemory(TileEntitySharedMemory te) {
+    memories.add(te);
+  }
+
+  WirelessRegistry getWireless() {
+    return wireless;
+  }
+
+  TimerWheel getTimers() {
+    return timers;
+  }
+
+  /**
+   * queues the output of the processor on the given side of a linked processor to be delivered with {@link #deliverLinks()}
+   */
+  void pushLink(TileEntityMinecoprocessor te, int side) {
+    linkPushes.merge(te, 1 << side, (a, b) -> a | b);
+  }
+
+  /**
+   * queues the FIFO ports of the processor to be transferred with {@link #deliverLinks()}
+   */
+  void transferFifos(TileEntityMinecoprocessor te) {
+    fifoTransfers.add(te);
+  }
+
+  private void deliverLinks() {
+    if (!fifoTransfers.isEmpty()) {
+      List<TileEntityMinecoprocessor> transfers = new ArrayList<>(fifoTransfers);
+      fifoTransfers.clear();
+      for (TileEntityMinecoprocessor te : transfers) {
+        if (te.isLoaded()) {
+          te.transferFifos();
+        }
+      }
+    }
+    if (linkPushes.isEmpty()) {
+      return;
+    }
+    List<Map.Entry<TileEntityMinecoprocessor, Integer>> pushes = new ArrayList<>(linkPushes.entrySet());
+    linkPushes.clear();
+    for (Map.Entry<TileEntityMinecoprocessor, Integer> push : pushes) {
+      if (push.getKey().isLoaded()) {
+        push.getKey().receiveLinks(push.getValue());
+      }
+    }
+  }
+
+  /**
+   * applies the ACTIVE block state of the processor with {@link BlockMinecoprocessor#updateActiveState} once its hold time is over
+   */
+  void holdActiveState(TileEntityMinecoprocessor te) {
+    heldStates.add(te);
+  }
+
+  private void releaseActiveStates() {
+    if (heldStates.isEmpty()) {
+      return;
+    }
+    List<TileEntityMinecoprocessor> released = new ArrayList<>();
+    for (Iterator<TileEntityMinecoprocessor> it = heldStates.iterator(); it.hasNext(); ) {
+      TileEntityMinecoprocessor te = it.next();
+      if (!te.isLoaded()) {
+        it.remove();
+      } else if (te.getActiveHoldRemaining() == 0) {
+        it.remove();
+        released.add(te);
+      }
+    }
+    for (TileEntityMinecoprocessor te : released) {
+      World world = te.getWorld();
+      BlockMinecoprocessor.updateActiveState(world, te.getPos(), world.getBlockState(te.getPos()));
+    }
+  }
+
+  void schedule(TileEntityMinecoprocessor te) {
+    scheduled.add(te);
+  }
+
+  @SubscribeEvent
+  public static void onWorldTick(TickEvent.WorldTickEvent event) {
+    if (event.world.isRemote) {
+      return;
+    }
+    ProcessorScheduler scheduler = SCHEDULERS.get(event.world);
+    if (scheduler == null) {
+      return;
+    }
+    long start = System.nanoTime();
+    boolean pipelined = Settings.executionMode == ExecutionMode.PIPELINED;
+    if (event.phase == TickEvent.Phase.START) {
+      if (!pipelined) {
+        scheduler.commitTick();
+      }
+      scheduler.spent += System.nanoTime() - start;
+    } else {
+      if (pipelined) {
+        scheduler.commitTick();
+      }
+      scheduler.timers.advance(event.world.getTotalWorldTime());
+      scheduler.releaseActiveStates();
+      int executed = scheduler.update(scheduler.governor.allowance(event.world.getMinecraftServer()));
+      scheduler.run();
+      scheduler.deliverLinks();
+      scheduler.wireless.deliver();
+      scheduler.governor.spent(scheduler.spent + System.nanoTime() - start, executed);
+      scheduler.spent = 0;
+    }
+  }
+
+  /**
+   * commits what the processors of the previous tick left behind before the processors of this tick are updated
+   */
+  private void commitTick() {
+    sync();
+    commitMemories();
+    deliverLinks();
+  }
+
+  @SubscribeEvent
+  public static void onWorldUnload(WorldEvent.Unload event) {
+    ProcessorScheduler scheduler = SCHEDULERS.remove(event.getWorld());
+    if (scheduler != null) {
+      scheduler.sync();
+    }
+  }
+
+  /**
+   * Updates active processors and drops the ones that were parked or unloaded, processors activated during the pass are appended and
+   * updated in the same pass. Only processors that execute count against the allowance, one that is not due in this tick passes for free.
+   * Once the allowance is used up the remaining processors are throttled, they move to the front of the list and are updated first in the
+   * next tick. The list is rotated as a whole, so a cluster order stays intact apart from the point where the rotation wraps around, and a
+   * new cluster order starts at the first throttled processor again. Returns the number of processors that executed.
+   */
+  private int update(int allowance) {
+    if (Settings.clusterOrdering && (orderDirty || rankDirty)) {
+      if (orderDirty) {
+        orderClusters();
+      } else {
+        active.sort(BY_RANK);
+      }
+      int resume = resumeFrom == null ? -1 : active.indexOf(resumeFrom);
+      if (resume > 0) {
+        Collections.rotate(active, -resume);
+      }
+    }
+    orderDirty = false;
+    rankDirty = false;
+    resumeFrom = null;
+
+    int kept = 0;
+    int executed = 0;
+    int i = 0;
+    for (; i < active.size() && executed < allowance; i++) {
+      TileEntityMinecoprocessor te = active.get(i);
+      te.setThrottled(false);
+      boolean loaded = te.isLoaded();
+      if (loaded && te.update()) {
+        active.set(kept++, te);
+      } else {
+        te.active = false;
+      }
+      if (loaded && te.hasRun()) {
+        executed++;
+      }
+    }
+    active.subList(kept, i).clear();
+
+    if (kept < active.size()) {
+      for (int j = kept; j < active.size(); j++) {
+        active.get(j).setThrottled(true);
+      }
+      resumeFrom = active.get(kept);
+      Collections.rotate(active, -kept);
+    }
+    return executed;
+  }
+
+  /**
+   * Orders the active processors so that a processor driving a linked processor through an output port is updated before it. The order
+   * starts out by position and a cycle is broken at its lowest position, so the result does not depend on the order processors were loaded
+   * in. Parked processors linked to active ones are ranked as well, so when they are activated again they are sorted back into place by
+   * their rank instead of ordering every cluster again.
+   */
+  private void orderClusters() {
+    List<TileEntityMinecoprocessor> nodes = new ArrayList<>(active);
+    Map<TileEntityMinecoprocessor, Integer> index = new IdentityHashMap<>();
+    for (TileEntityMinecoprocessor te : nodes) {
+      index.put(te, 0);
+    }
+    for (int i = 0; i < nodes.size(); i++) {
+      for (int side = 0; side < 4; side++) {
+        TileEntityMinecoprocessor link = nodes.get(i).getLink(side);
+        if (link != null && index.put(link, 0) == null) {
+          nodes.add(link);
+        }
+      }
+    }
+
+    nodes.sort(BY_POSITION);
+    int n = nodes.size();
+    for (int i = 0; i < n; i++) {
+      index.put(nodes.get(i), i);
+    }
+
+    int[] inDegree = new int[n];
+    for (TileEntityMinecoprocessor te : nodes) {
+      for (int side = 0; side < 4; side++) {
+        Integer driven = index.get(te.getDrivenLink(side));
+        if (driven != null) {
+          inDegree[driven]++;
+        }
+      }
+    }
+
+    PriorityQueue<Integer> ready = new PriorityQueue<>();
+    for (int i = 0; i < n; i++) {
+      if (inDegree[i] == 0) {
+        ready.add(i);
+      }
+    }
+
+    order++;
+    boolean[] done = new boolean[n];
+    int rank = 0;
+    int lowestPending = 0;
+    active.clear();
+    while (rank < n) {
+      if (ready.isEmpty()) {
+        // only cycles are left, break the one with the lowest position
+        while (done[lowestPending]) {
+          lowestPending++;
+        }
+        ready.add(lowestPending);
+      }
+      int i = ready.poll();
+      if (done[i]) {
+        continue;
+      }
+      done[i] = true;
+      TileEntityMinecoprocessor te = nodes.get(i);
+      te.clusterRank = rank++;
+      te.clusterOrder = order;
+      if (te.active) {
+        active.add(te);
+      }
+      for (int side = 0; side < 4; side++) {
+        Integer driven = index.get(te.getDrivenLink(side));
+        if (driven != null && !done[driven] && --inDegree[driven] == 0) {
+          ready.add(driven);
+        }
+      }
+    }
+  }
+
+  private void run() {
+    if (scheduled.isEmpty()) {
+      return;
+    }
+
+    scheduled.prepare();
+
+    if (Settings.executionMode == ExecutionMode.PIPELINED) {
+      launch();
+      return;
+    }
+
+    switch (Settings.executionMode) {
+      case LOCKSTEP:
+        for (int cycle = 0; cycle < scheduled.maxCycles; cycle++) {
+          lockstep.step(scheduled.due(cycle));
+        }
+        break;
+      case PARALLEL:
+        getPool().invoke(new TickTask(scheduled, 0, scheduled.processors.size()));
+        break;
+      default:
+        scheduled.run(0, scheduled.processors.size());
+        break;
+    }
+
+    scheduled.finish();
+  }
+
+  private void launch() {
+    sync();
+
+    Batch batch = scheduled;
+    scheduled = inFlight;
+    inFlight = batch;
+
+    for (TileEntityMinecoprocessor te : batch.tes) {
+      te.setExecuting(true);
+    }
+
+    pending = getPipeline().submit(() -> batch.run(0, batch.processors.size()));
+  }
+
+  /**
+   * Waits for the batch executing on the pipeline worker, if there is one, and commits its results.
+   */
+  void sync() {
+    if (pending == null) {
+      return;
+    }
+
+    try {
+      pending.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      Minecoprocessors.proxy.handleUnexpectedException(e);
+    }
+    pending = null;
+
+    for (TileEntityMinecoprocessor te : inFlight.tes) {
+      te.setExecuting(false);
+    }
+    inFlight.finish();
+  }
+
+  /**
+   * Applies the shared memory writes of the previous tick. Every processor of that tick has finished executing at this point, whatever the
+   * execution mode, and none of this tick has started yet.
+   */
+  private void commitMemories() {
+    int kept = 0;
+    for (TileEntitySharedMemory te : memories) {
+      if (te.isLoaded()) {
+        te.commit();
+        memories.set(kept++, te);
+      }
+    }
+    memories.subList(kept, memories.size()).clear();
+  }
+
+  private static ForkJoinPool getPool() {
+    if (pool == null) {
+      int threads = Settings.parallelThreads > 0 ? Settings.parallelThreads : Runtime.getRuntime().availableProcessors();
+      pool = new ForkJoinPool(threads);
+    }
+    return pool;
+  }
+
+  private static ExecutorService getPipeline() {
+    if (pipeline == null) {
+      pipeline = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, Minecoprocessors.MODNAME + " Pipeline");
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    return pipeline;
+  }
+
+  private static class Batch {
+
+    private final List<TileEntityMinecoprocessor> tes = new ArrayList<>();
+    private final List<Processor> processors = new ArrayList<>();
+    private final List<Processor> due = new ArrayList<>();
+    private boolean[] executed = new boolean[0];
+    private int[] cycles = new int[0];
+    private int maxCycles;
+
+    void add(TileEntityMinecoprocessor te) {
+      tes.add(te);
+    }
+
+    boolean isEmpty() {
+      return tes.isEmpty();
+    }
+
+    /**
+     * latches the inputs of every processor and records which of them are going to execute and for how many cycles
+     */
+    void prepare() {
+      if (executed.length < tes.size()) {
+        executed = new boolean[tes.size()];
+        cycles = new int[tes.size()];
+      }
+      maxCycles = 0;
+      for (int i = 0; i < tes.size(); i++) {
+        TileEntityMinecoprocessor te = tes.get(i);
+        te.latchPorts();
+        Processor processor = te.getProcessor();
+        executed[i] = processor.isRunnable();
+        cycles[i] = te.takeCycles();
+        maxCycles = Math.max(maxCycles, cycles[i]);
+        processors.add(processor);
+      }
+    }
+
+    /**
+     * runs the processors in the given range for their full cycle budget, one after another
+     */
+    void run(int from, int to) {
+      for (int i = from; i < to; i++) {
+        processors.get(i).run(cycles[i]);
+      }
+    }
+
+    /**
+     * the processors that still have cycles left in the given cycle
+     */
+    List<Processor> due(int cycle) {
+      due.clear();
+      for (int i = 0; i < processors.size(); i++) {
+        if (cycles[i] > cycle) {
+          due.add(processors.get(i));
+        }
+      }
+      return due;
+    }
+
+    void finish() {
+      for (int i = 0; i < tes.size(); i++) {
+        TileEntityMinecoprocessor te = tes.get(i);
+        if (!te.isInvalid()) {
+          te.finishTick(executed[i]);
+        }
+      }
+      tes.clear();
+      processors.clear();
+    }
+  }
+
+  private static class TickTask extends RecursiveAction {
+
+    private static final int BATCH_SIZE = 32;
+
+    private final Batch batch;
+    private final int from;
+    private final int to;
+
+    TickTask(Batch batch, int from, int to) {
+      this.batch = batch;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= BATCH_SIZE) {
+        batch.run(from, to);
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new TickTask(batch, from, middle), new TickTask(batch, middle, to));
+    }
+  }
+}
@@ -16,7 +16,7 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.tileentity.TileEntity;
-import net.minecraft.util.ITickable;
+import net.minecraft.util.EnumFacing;
 import net.minecraft.util.NonNullList;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.text.ITextComponent;
@@ -25,22 +25,33 @@ import net.minecraft.util.text.TextComponentTranslation;
 import net.minecraft.world.World;
 import net.minecraftforge.fml.common.registry.GameRegistry;
 import net.torocraft.minecoprocessors.Minecoprocessors;
+import net.torocraft.minecoprocessors.Settings;
+import net.torocraft.minecoprocessors.Settings.ExecutionMode;
+import net.torocraft.minecoprocessors.Settings.ProximityPolicy;
 import net.torocraft.minecoprocessors.items.ItemBookCode;
 import net.torocraft.minecoprocessors.network.MessageProcessorUpdate;
+import net.torocraft.minecoprocessors.processor.ByteRing;
+import net.torocraft.minecoprocessors.processor.PortBuffer;
 import net.torocraft.minecoprocessors.processor.Processor;
-import net.torocraft.minecoprocessors.processor.Register;
+import net.torocraft.minecoprocessors.processor.SharedMemory;
 import net.torocraft.minecoprocessors.util.ByteUtil;
 import net.torocraft.minecoprocessors.util.InstructionUtil;
 import net.torocraft.minecoprocessors.util.RedstoneUtil;
 
-public class TileEntityMinecoprocessor extends TileEntity implements ITickable, IInventory {
+public class TileEntityMinecoprocessor extends TileEntity implements IInventory {
 
   private static final String NAME = "minecoprocessor_tile_entity";
   private static final String NBT_PROCESSOR = "processor";
   private static final String NBT_LOAD_TIME = "loadTime";
   private static final String NBT_CUSTOM_NAME = "CustomName";
+  private static final String NBT_CLOCK = "clock";
+  private static final String NBT_SAVE_TIME = "saveTime";
+  private static final int MAX_PHASE_GROUP = 256;
+  private static final int PROXIMITY_CHECK_INTERVAL = 20;
+  private static final int ALL_SIDES = 0b1111;
 
   private final Processor processor = new Processor();
+  private final PortBuffer portBuffer = new PortBuffer();
 
   private NonNullList<ItemStack> codeItemStacks = NonNullList.<ItemStack>withSize(1, ItemStack.EMPTY);
   private String customName;
@@ -49,11 +60,91 @@ public class TileEntityMinecoprocessor extends TileEntity implements ITickable,
   private final Set<EntityPlayerMP> playersToUpdate = new HashSet<>();
 
   private final byte[] prevPortValues = new byte[4];
+
+  /**
+   * input power per side, indexed by horizontal index, only sides marked stale are read from the world again
+   */
+  private final int[] inputPower = new int[4];
+  private final int[] portInputs = new int[4];
+  private int staleInputs = ALL_SIDES;
+
+  /**
+   * adjacent processors, indexed by horizontal index, their facing ports are linked directly instead of through redstone
+   */
+  private final TileEntityMinecoprocessor[] links = new TileEntityMinecoprocessor[4];
+
+  /**
+   * the output of each linked processor as last delivered by the {@link ProcessorScheduler}, read live instead while
+   * {@link Settings#clusterOrdering} is on
+   */
+  private final byte[] linkInputs = new byte[4];
+
+  /**
+   * the shared memory of an adjacent {@link TileEntitySharedMemory}, handed to the processor before it executes
+   */
+  private SharedMemory.Attachment bus;
+
+  /**
+   * output ports that changed since the neighbors were last notified
+   */
+  private int dirtyPorts;
+
+  /**
+   * the weak power the processor provides, indexed by the side it is queried from, see {@link #getSidePower(EnumFacing)}
+   */
+  private final int[] sidePower = new int[6];
+  private boolean sidePowerStale = true;
   private byte prevPortsRegister = 0x0f;
 
+  /**
+   * the wireless configuration last applied, the channel this processor receives on (null for none) and the last value read from it
+   */
+  private byte prevWireless;
+  private int prevChannel;
+  private WirelessRegistry.Channel receiving;
+  private byte wirelessValue;
+
   private boolean prevIsInactive;
+  private long activeChangedTime = -1;
   private boolean overClocked;
 
+  /**
+   * positive values are instructions per tick, negative values are ticks per instruction, 0 until the default is known
+   */
+  private int clock;
+  private boolean throttled;
+  private Integer phaseSeed;
+  private long nextProximityCheck;
+  private boolean far;
+  private long parkedSince = -1;
+  private int catchUpCycles;
+  private long saveTime = -1;
+  private boolean executing;
+  private boolean unloaded;
+  private long lastUpdateTime = -1;
+
+  /**
+   * true if the last update executed the processor or handed it to the scheduler to execute, only these updates count against the
+   * allowance of the {@link ProcessorGovernor}
+   */
+  private boolean ran;
+
+  /**
+   * the tick the timer wheel wakes the processor up in for the earliest SLP of its cores to end, -1 while no core is sleeping
+   */
+  private long wakeTime = -1;
+
+  /**
+   * owned by {@link ProcessorScheduler}, true while this tile entity is in the list of processors updated every tick
+   */
+  boolean active;
+
+  /**
+   * owned by {@link ProcessorScheduler}, the position of this processor in the cluster order and the number of the order that ranked it
+   */
+  int clusterRank;
+  int clusterOrder = -1;
+
   public static void init() {
     GameRegistry.registerTileEntity(TileEntityMinecoprocessor.class, NAME);
   }
@@ -61,6 +152,62 @@ public class TileEntityMinecoprocessor extends TileEntity implements ITickable,
   @Override
   public void onLoad() {
     overClocked = world.getBlockState(pos).getValue(BlockMinecoprocessor.OVERCLOCKED);
+    if (clock == 0) {
+      clock = overClocked ? 1 : -2;
+    }
+    clock = clampClock(clock);
+    processor.setCoreCount(overClocked ? Settings.overclockedCores : 1);
+    processor.setMemorySize(overClocked ? Settings.overclockedMemory * 1024 : 0);
+    if (Settings.staggeredTicking) {
+      resetPhases(world, pos);
+    }
+    if (Settings.catchUpOnLoad && saveTime >= 0 && !world.isRemote && processor.isRunnable()) {
+      catchUpCycles = missedCycles(world.getTotalWorldTime() - saveTime);
+    }
+    saveTime = -1;
+    if (!world.isRemote) {
+      processor.setTime(world.getTotalWorldTime());
+      scheduleWake();
+    }
+    activate();
+  }
+
+  @Override
+  public void onChunkUnload() {
+    unloaded = true;
+    stopReceiving();
+  }
+
+  @Override
+  public void invalidate() {
+    super.invalidate();
+    stopReceiving();
+  }
+
+  /**
+   * drops this processor from the channel it waits on, so the registry does not hold on to tile entities that are gone
+   */
+  private void stopReceiving() {
+    if (receiving != null) {
+      receiving.cancel(this);
+    }
+  }
+
+  /**
+   * false once the tile entity has been removed from the world, the scheduler drops it on its next pass
+   */
+  boolean isLoaded() {
+    return !unloaded && !isInvalid();
+  }
+
+  /**
+   * puts the processor back into the list of processors updated every tick, needs to be called whenever something could make a parked
+   * processor runnable again
+   */
+  public void activate() {
+    if (world != null && !world.isRemote) {
+      ProcessorScheduler.get(world).activate(this);
+    }
   }
 
   @Override
@@ -71,12 +218,20 @@ public class TileEntityMinecoprocessor extends TileEntity implements ITickable,
   @Override
   public void readFromNBT(NBTTagCompound c) {
     super.readFromNBT(c);
+    awaitExecution();
     processor.readFromNBT(c.getCompoundTag(NBT_PROCESSOR));
+    portBuffer.loadLevels(processor);
+    publishPorts();
+    activate();
 
     codeItemStacks = NonNullList.<ItemStack>withSize(this.getSizeInventory(), ItemStack.EMPTY);
     ItemStackHelper.loadAllItems(c, codeItemStacks);
 
     loadTime = c.getShort(NBT_LOAD_TIME);
+    if (c.hasKey(NBT_CLOCK)) {
+      clock = c.getInteger(NBT_CLOCK);
+    }
+    saveTime = c.hasKey(NBT_SAVE_TIME) ? c.getLong(NBT_SAVE_TIME) : -1;
 
     if (c.hasKey(NBT_CUSTOM_NAME, 8)) {
       this.customName = c.getString(NBT_CUSTOM_NAME);
@@ -86,9 +241,17 @@ public class TileEntityMinecoprocessor extends TileEntity implements ITickable,
   @Override
   public NBTTagCompound writeToNBT(NBTTagCompound cIn) {
     NBTTagCompound c = super.writeToNBT(cIn);
+    awaitExecution();
+    if (world != null && !world.isRemote) {
+      processor.setTime(world.getTotalWorldTime());
+    }
     c.setTag(NBT_PROCESSOR, processor.writeToNBT());
 
     c.setShort(NBT_LOAD_TIME, (short) loadTime);
+    c.setInteger(NBT_CLOCK, clock);
+    if (world != null) {
+      c.setLong(NBT_SAVE_TIME, world.getTotalWorldTime());
+    }
     ItemStackHelper.saveAllItems(c, codeItemStacks);
 
     if (this.hasCustomName()) {
@@ -98,16 +261,30 @@ public class TileEntityMinecoprocessor extends TileEntity implements ITickable,
     return c;
   }
 
-  @Override
-  public void update() {
-    if (world.isRemote) {
-      return;
+  /**
+   * called by the {@link ProcessorScheduler} once per world tick while the processor is active, returns false when the processor is
+   * waiting, halted or faulted and can be parked until it is activated again
+   */
+  boolean update() {
+    awaitExecution();
+    ran = false;
+
+    long worldTime = world.getTotalWorldTime();
+    if (lastUpdateTime == worldTime) {
+      return true;
     }
+    lastUpdateTime = worldTime;
 
-    if (!overClocked && world.getTotalWorldTime() % 2 != 0) {
-      return;
+    if (!isDue(worldTime)) {
+      return true;
     }
 
+    readWireless();
+    processor.setTime(worldTime);
+    portBuffer.latch(processor);
+    processor.setBus(bus);
+    scheduleWake();
+
     boolean isInactive = processor.isWait() || processor.isFault();
 
     if (prevIsInactive != isInactive) {
@@ -119,24 +296,313 @@ public class TileEntityMinecoprocessor extends TileEntity implements ITickable,
     if (!loaded) {
       Processor.reset(prevPortValues);
       prevPortsRegister = 0x0f;
+      staleInputs = ALL_SIDES;
+      updateWireless();
       BlockMinecoprocessor.updateInputPorts(world, pos, world.getBlockState(pos));
       loaded = true;
     }
 
-    if (processor.tick()) {
+    if (!processor.isRunnable()) {
+      catchUpCycles = 0;
+      if (receiving != null && processor.isWait()) {
+        receiving.await(this);
+      }
+      return false;
+    }
+
+    ran = true;
+    if (Settings.executionMode != ExecutionMode.SERIAL && !(Settings.clusterOrdering && hasLinks())) {
+      ProcessorScheduler.get(world).schedule(this);
+      return true;
+    }
+
+    finishTick(processor.run(takeCycles()) > 0);
+    return true;
+  }
+
+  boolean hasRun() {
+    return ran;
+  }
+
+  /**
+   * schedules the alarm for the earliest SLP of the processor's cores to end, unless it is already scheduled
+   */
+  private void scheduleWake() {
+    long time = processor.getWakeTime();
+    if (time < 0) {
+      return;
+    }
+    time = Math.max(time, world.getTotalWorldTime() + 1);
+    if (time != wakeTime) {
+      wakeTime = time;
+      ProcessorScheduler.get(world).getTimers().schedule(this, time);
+    }
+  }
+
+  long getWakeTime() {
+    return wakeTime;
+  }
+
+  /**
+   * called by the {@link TimerWheel} once the SLP of the processor is over
+   */
+  void alarm() {
+    portBuffer.requestAlarm(wakeTime);
+    wakeTime = -1;
+    activate();
+  }
+
+  /**
+   * the number of ticks the ACTIVE block state has to be kept before it may change again
+   */
+  int getActiveHoldRemaining() {
+    if (activeChangedTime < 0) {
+      return 0;
+    }
+    return (int) Math.max(0, activeChangedTime + Settings.activeStateHoldTicks - world.getTotalWorldTime());
+  }
+
+  void onActiveStateChanged() {
+    activeChangedTime = world.getTotalWorldTime();
+  }
+
+  private boolean isDue(long worldTime) {
+    int period = clock < 0 ? -clock : 1;
+
+    if (Settings.proximityPolicy != ProximityPolicy.FULL_SPEED && isFar(worldTime)) {
+      if (parkedSince >= 0) {
+        return false;
+      }
+      period *= Settings.farClockDivider;
+    }
+
+    return period == 1 || (worldTime + getPhase(period)) % period == 0;
+  }
+
+  /**
+   * Checks every few ticks whether a player is near the chunk of the processor. In the CATCH_UP policy a far processor is parked unless it
+   * drives a block through an output port, once a player comes near again the instructions it missed are added to its next cycle budget.
+   * A processor that is waiting, sleeping or faulted would not have executed anything in the meantime and gets no instructions to catch up
+   * on, neither does one that starts to wait before it used them.
+   */
+  private boolean isFar(long worldTime) {
+    if (worldTime < nextProximityCheck) {
+      return far;
+    }
+    nextProximityCheck = worldTime + PROXIMITY_CHECK_INTERVAL;
+
+    double x = (pos.getX() & ~15) + 8;
+    double z = (pos.getZ() & ~15) + 8;
+    far = !world.isAnyPlayerWithinRangeAt(x, pos.getY(), z, Settings.proximityDistance);
+
+    boolean park = far && Settings.proximityPolicy == ProximityPolicy.CATCH_UP && !hasVisibleOutputs();
+    if (park && parkedSince < 0) {
+      parkedSince = worldTime;
+    } else if (!park && parkedSince >= 0) {
+      catchUpCycles = processor.isRunnable() ? missedCycles(worldTime - parkedSince) : 0;
+      parkedSince = -1;
+    }
+    return far;
+  }
+
+  /**
+   * the number of instructions the processor would have executed in the given number of ticks, bounded by the catch up limit
+   */
+  private int missedCycles(long ticks) {
+    if (ticks <= 0) {
+      return 0;
+    }
+    long missed = clock > 0 ? ticks * clock : ticks / -clock;
+    return (int) Math.min(missed, Settings.maxCatchUpInstructions);
+  }
+
+  private boolean hasVisibleOutputs() {
+    EnumFacing facing = world.getBlockState(pos).getValue(BlockMinecoprocessor.FACING).getOpposite();
+    for (int portIndex = 0; portIndex < 4; portIndex++) {
+      if (!isInOutputMode(portBuffer.getPorts(), portIndex)) {
+        continue;
+      }
+      if (isWirelessMode(portBuffer.getWireless(), portIndex) ? portBuffer.getChannel() != 0
+          : !world.isAirBlock(pos.offset(RedstoneUtil.convertPortIndexToFacing(facing, portIndex)))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private int getPhase(int period) {
+    return Settings.staggeredTicking ? Math.floorMod(getPhaseSeed(), period) : 0;
+  }
+
+  /**
+   * Processors connected through their ports share one phase seed, hashed from the lowest position in the group, so they keep their
+   * timing relative to each other while unrelated groups are spread over the ticks of their period.
+   */
+  private int getPhaseSeed() {
+    if (phaseSeed == null) {
+      BlockPos root = pos;
+      for (TileEntityMinecoprocessor te : findConnected(world, pos)) {
+        if (te.pos.compareTo(root) < 0) {
+          root = te.pos;
+        }
+      }
+      int hash = root.hashCode() * 0x9e3779b9;
+      phaseSeed = hash ^ (hash >>> 16);
+    }
+    return phaseSeed;
+  }
+
+  /**
+   * forgets the phase seeds of the group connected to the given position, to be called when the group changes
+   */
+  static void resetPhases(World world, BlockPos pos) {
+    for (TileEntityMinecoprocessor te : findConnected(world, pos)) {
+      te.phaseSeed = null;
+    }
+  }
+
+  private static List<TileEntityMinecoprocessor> findConnected(World world, BlockPos start) {
+    List<TileEntityMinecoprocessor> found = new ArrayList<>();
+    Set<BlockPos> visited = new HashSet<>();
+    Deque<BlockPos> open = new ArrayDeque<>();
+    open.add(start);
+    visited.add(start);
+
+    while (!open.isEmpty() && found.size() < MAX_PHASE_GROUP) {
+      BlockPos p = open.poll();
+      TileEntity te = world.isBlockLoaded(p) ? world.getTileEntity(p) : null;
+      if (!(te instanceof TileEntityMinecoprocessor) || te.isInvalid()) {
+        continue;
+      }
+      found.add((TileEntityMinecoprocessor) te);
+      for (EnumFacing side : EnumFacing.HORIZONTALS) {
+        BlockPos neighbor = p.offset(side);
+        if (visited.add(neighbor)) {
+          open.add(neighbor);
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * the number of instructions the processor executes when it is due, including instructions it has to catch up on
+   */
+  int takeCycles() {
+    int cycles = (clock > 0 ? clock : 1) + catchUpCycles;
+    catchUpCycles = 0;
+    return cycles;
+  }
+
+  public int getClock() {
+    return clock;
+  }
+
+  /**
+   * set by the scheduler while the processor is held back by the {@link ProcessorGovernor}
+   */
+  void setThrottled(boolean throttled) {
+    if (this.throttled != throttled) {
+      this.throttled = throttled;
+      updatePlayers();
+    }
+  }
+
+  public boolean isThrottled() {
+    return throttled;
+  }
+
+  /**
+   * doubles or halves the clock, within the bounds set in {@link Settings} and one instruction every other tick for processors that are
+   * not overclocked
+   */
+  public void changeClock(boolean faster) {
+    int next;
+    if (faster) {
+      next = clock == -2 ? 1 : clock > 0 ? clock * 2 : clock / 2;
+    } else {
+      next = clock == 1 ? -2 : clock > 0 ? clock / 2 : clock * 2;
+    }
+    clock = clampClock(next);
+    markDirty();
+  }
+
+  private int clampClock(int clock) {
+    int max = overClocked ? Settings.maxInstructionsPerTick : -2;
+    if (clock > max) {
+      return max;
+    }
+    if (clock < -Settings.maxTicksPerInstruction) {
+      return -Settings.maxTicksPerInstruction;
+    }
+    return clock == -1 ? 1 : clock;
+  }
+
+  /**
+   * applies staged inputs to the processor before a batch executes it
+   */
+  void latchPorts() {
+    portBuffer.latch(processor);
+  }
+
+  /**
+   * marks the processor as executing off the server thread, until the scheduler calls {@link #finishTick(boolean)}
+   */
+  void setExecuting(boolean executing) {
+    this.executing = executing;
+  }
+
+  /**
+   * blocks until a pipelined batch that is executing this processor off the server thread has been committed
+   */
+  private void awaitExecution() {
+    if (executing) {
+      ProcessorScheduler.get(world).sync();
+    }
+  }
+
+  /**
+   * publishes the result of the instructions executed in this tick, output changes are detected once for all of them
+   */
+  void finishTick(boolean executed) {
+    publishPorts();
+
+    if (prevWireless != portBuffer.getWireless() || prevChannel != portBuffer.getChannel() || prevPortsRegister != portBuffer.getPorts()) {
+      updateWireless();
+      BlockMinecoprocessor.updateInputPorts(world, pos, world.getBlockState(pos));
+    }
+
+    if (executed) {
       updatePlayers();
       detectOutputChanges();
     }
+    flushOutputChanges();
 
-    if (prevPortsRegister != processor.getRegisters()[Register.PORTS.ordinal()]) {
+    if ((portBuffer.getFifo() & 0x0f) != 0) {
+      if (Settings.clusterOrdering) {
+        transferFifos();
+      } else {
+        ProcessorScheduler.get(world).transferFifos(this);
+      }
+    }
+
+    scheduleWake();
+
+    if (prevPortsRegister != portBuffer.getPorts()) {
       BlockMinecoprocessor.updateInputPorts(world, pos, world.getBlockState(pos));
-      prevPortsRegister = processor.getRegisters()[Register.PORTS.ordinal()];
+      prevPortsRegister = portBuffer.getPorts();
+      for (EnumFacing side : EnumFacing.HORIZONTALS) {
+        pushLink(side);
+      }
+      if (hasLinks()) {
+        ProcessorScheduler.get(world).invalidateOrder();
+      }
     }
   }
 
   public void updatePlayers() {
     for (EntityPlayerMP player : playersToUpdate) {
-      Minecoprocessors.NETWORK.sendTo(new MessageProcessorUpdate(processor.writeToNBT(), pos, getName()), player);
+      Minecoprocessors.NETWORK.sendTo(new MessageProcessorUpdate(processor.writeToNBT(), pos, getName(), clock, throttled), player);
     }
   }
 
@@ -148,24 +614,326 @@ public class TileEntityMinecoprocessor extends TileEntity implements ITickable,
   }
 
   private void detectOutputChange(int portIndex) {
-    byte[] registers = processor.getRegisters();
-    byte ports = registers[Register.PORTS.ordinal()];
-
-    byte curVal = registers[Register.PF.ordinal() + portIndex];
+    byte ports = portBuffer.getPorts();
+    byte curVal = portBuffer.getPort(portIndex);
 
     if (isInOutputMode(ports, portIndex) && prevPortValues[portIndex] != curVal) {
       prevPortValues[portIndex] = curVal;
-      BlockMinecoprocessor.INSTANCE.onPortChange(world, pos, world.getBlockState(pos), portIndex);
+      dirtyPorts |= 1 << portIndex;
+    }
+  }
+
+  /**
+   * notifies the neighbors on each side with a changed output port once
+   */
+  private void flushOutputChanges() {
+    if (dirtyPorts == 0) {
+      return;
+    }
+    IBlockState state = world.getBlockState(pos);
+    EnumFacing facing = state.getValue(BlockMinecoprocessor.FACING).getOpposite();
+    for (int portIndex = 0; portIndex < 4; portIndex++) {
+      if ((dirtyPorts & (1 << portIndex)) == 0) {
+        continue;
+      }
+      if (isWirelessMode(portBuffer.getWireless(), portIndex)) {
+        sendWireless(portIndex);
+      } else {
+        pushLink(RedstoneUtil.convertPortIndexToFacing(facing, portIndex));
+        BlockMinecoprocessor.INSTANCE.onPortChange(world, pos, state, portIndex);
+      }
+    }
+    dirtyPorts = 0;
+  }
+
+  /**
+   * Applies a change of the wireless registers or the port directions: picks up the channel if a port receives on it, sends the current
+   * value of every transmitting port, and notifies the neighbors of ports that switched between wireless and redstone.
+   */
+  private void updateWireless() {
+    byte wireless = portBuffer.getWireless();
+    int channel = portBuffer.getChannel();
+    byte ports = portBuffer.getPorts();
+
+    WirelessRegistry.Channel receiving = null;
+    for (int portIndex = 0; portIndex < 4 && channel != 0; portIndex++) {
+      if (isWirelessMode(wireless, portIndex) && isInInputMode(ports, portIndex)) {
+        receiving = ProcessorScheduler.get(world).getWireless().getChannel(channel);
+      }
+    }
+    if (receiving != this.receiving) {
+      stopReceiving();
+      this.receiving = receiving;
+      wirelessValue = receiving != null ? receiving.getValue() : 0;
+    }
+
+    for (int portIndex = 0; portIndex < 4; portIndex++) {
+      if (isWirelessMode(wireless, portIndex)) {
+        sendWireless(portIndex);
+      }
+    }
+
+    int switched = (prevWireless ^ wireless) & 0x0f;
+    if (switched != 0) {
+      IBlockState state = world.getBlockState(pos);
+      for (int portIndex = 0; portIndex < 4; portIndex++) {
+        if ((switched & (1 << portIndex)) != 0) {
+          BlockMinecoprocessor.INSTANCE.onPortChange(world, pos, state, portIndex);
+        }
+      }
+    }
+
+    prevWireless = wireless;
+    prevChannel = channel;
+  }
+
+  private void sendWireless(int portIndex) {
+    int channel = portBuffer.getChannel();
+    if (channel != 0 && isInOutputMode(portBuffer.getPorts(), portIndex)) {
+      ProcessorScheduler.get(world).getWireless().send(channel, portBuffer.getPort(portIndex));
+    }
+  }
+
+  /**
+   * applies the value of the channel this processor receives on if it changed since it was last read
+   */
+  private void readWireless() {
+    if (receiving != null && receiving.getValue() != wirelessValue) {
+      wirelessValue = receiving.getValue();
+      BlockMinecoprocessor.updateInputPorts(world, pos, world.getBlockState(pos));
+    }
+  }
+
+  /**
+   * Delivers the output towards the given side to a linked processor. With cluster ordering the linked processor is updated after this one
+   * and gets the output right away, otherwise it gets it once every processor of the tick has executed, so it sees the output in the next
+   * tick regardless of the execution mode and the order processors are updated in.
+   */
+  private void pushLink(EnumFacing side) {
+    TileEntityMinecoprocessor link = getLink(side.getHorizontalIndex());
+    if (link == null) {
+      return;
+    }
+    if (Settings.clusterOrdering) {
+      link.markInputStale(pos);
+      BlockMinecoprocessor.updateInputPorts(world, link.pos, world.getBlockState(link.pos));
+    } else {
+      ProcessorScheduler.get(world).pushLink(link, side.getOpposite().getHorizontalIndex());
+    }
+  }
+
+  /**
+   * takes the outputs of the linked processors on the given sides, a mask of horizontal indexes
+   */
+  void receiveLinks(int sides) {
+    for (int i = 0; i < 4; i++) {
+      TileEntityMinecoprocessor link = getLink(i);
+      if ((sides & (1 << i)) != 0 && link != null) {
+        linkInputs[i] = link.getLinkedOutput(EnumFacing.getHorizontal(i).getOpposite());
+      }
+    }
+    BlockMinecoprocessor.updateInputPorts(world, pos, world.getBlockState(pos));
+  }
+
+  /**
+   * Moves queued values from the output FIFOs of this processor to the input FIFOs of the linked processors facing them, and from their
+   * output FIFOs to the input FIFOs of this processor. The processor on the other end is woken up, so a consumer waiting for data or a
+   * producer waiting for room continues. Values queued on a port without a linked FIFO port are dropped. Called by the
+   * {@link ProcessorScheduler} once every processor of the tick has executed, so the latency does not depend on the update order.
+   */
+  void transferFifos() {
+    byte fifo = portBuffer.getFifo();
+    if ((fifo & 0x0f) == 0) {
+      return;
+    }
+    byte ports = portBuffer.getPorts();
+    EnumFacing facing = world.getBlockState(pos).getValue(BlockMinecoprocessor.FACING).getOpposite();
+    for (int portIndex = 0; portIndex < 4; portIndex++) {
+      if (!isFifoMode(fifo, portIndex)) {
+        continue;
+      }
+      EnumFacing side = RedstoneUtil.convertPortIndexToFacing(facing, portIndex);
+      TileEntityMinecoprocessor link = getLink(side.getHorizontalIndex());
+      boolean output = isInOutputMode(ports, portIndex);
+      int linkPort = link == null ? -1 : link.getFifoPort(side.getOpposite(), !output);
+      if (output && linkPort < 0) {
+        processor.getOutputFifo(portIndex).clear();
+      } else if (output && transfer(processor.getOutputFifo(portIndex), link.processor.getInputFifo(linkPort))) {
+        link.portBuffer.requestWake();
+        link.activate();
+      } else if (!output && linkPort >= 0 && transfer(link.processor.getOutputFifo(linkPort), processor.getInputFifo(portIndex))) {
+        link.portBuffer.requestWake();
+        link.activate();
+      }
+    }
+  }
+
+  private static boolean transfer(ByteRing from, ByteRing to) {
+    boolean moved = false;
+    while (!to.isFull()) {
+      int value = from.poll();
+      if (value < 0) {
+        break;
+      }
+      to.offer((byte) value);
+      moved = true;
+    }
+    return moved;
+  }
+
+  /**
+   * the index of the port facing the given side if it is in FIFO mode with the given direction, -1 otherwise
+   */
+  private int getFifoPort(EnumFacing side, boolean input) {
+    EnumFacing facing = world.getBlockState(pos).getValue(BlockMinecoprocessor.FACING).getOpposite();
+    int portIndex = RedstoneUtil.convertFacingToPortIndex(facing, side);
+    byte ports = portBuffer.getPorts();
+    if (!isFifoMode(portBuffer.getFifo(), portIndex)) {
+      return -1;
+    }
+    return (input ? isInInputMode(ports, portIndex) : isInOutputMode(ports, portIndex)) ? portIndex : -1;
+  }
+
+  /**
+   * the linked processor on the side with the given horizontal index, null if there is none
+   */
+  TileEntityMinecoprocessor getLink(int side) {
+    TileEntityMinecoprocessor link = links[side];
+    if (link != null && !link.isLoaded()) {
+      links[side] = null;
+      return null;
+    }
+    return link;
+  }
+
+  /**
+   * the value of the port facing the given side as seen by a linked processor, the full eight bits of an output port and 0 otherwise
+   */
+  byte getLinkedOutput(EnumFacing side) {
+    EnumFacing facing = world.getBlockState(pos).getValue(BlockMinecoprocessor.FACING).getOpposite();
+    int portIndex = RedstoneUtil.convertFacingToPortIndex(facing, side);
+    if (isWirelessMode(portBuffer.getWireless(), portIndex)) {
+      return 0;
     }
+    return isInOutputMode(portBuffer.getPorts(), portIndex) ? portBuffer.getPort(portIndex) : 0;
+  }
+
+  /**
+   * marks the side the change came from to be read again, changes that do not come from a horizontal neighbor mark every side
+   */
+  void markInputStale(BlockPos fromPos) {
+    int dx = fromPos.getX() - pos.getX();
+    int dz = fromPos.getZ() - pos.getZ();
+    if (fromPos.getY() != pos.getY() || Math.abs(dx) + Math.abs(dz) != 1) {
+      staleInputs = ALL_SIDES;
+      return;
+    }
+    EnumFacing side = dx > 0 ? EnumFacing.EAST : dx < 0 ? EnumFacing.WEST : dz > 0 ? EnumFacing.SOUTH : EnumFacing.NORTH;
+    staleInputs |= 1 << side.getHorizontalIndex();
+  }
+
+  /**
+   * Reads the stale sides and applies the cached input of every side to the ports, facing is the front of the processor. A side with an
+   * adjacent processor is linked to it: the input is taken from that processor's output register instead of the redstone power.
+   */
+  void updateInputPorts(EnumFacing facing) {
+    if (staleInputs != 0) {
+      updateBus();
+    }
+    int linked = 0;
+    for (int i = 0; i < 4; i++) {
+      EnumFacing side = EnumFacing.getHorizontal(i);
+      if ((staleInputs & (1 << i)) != 0) {
+        updateLink(i, side);
+        if (links[i] == null) {
+          inputPower[i] = BlockMinecoprocessor.calculateInputStrength(world, pos.offset(side), side);
+        }
+      }
+      int portIndex = RedstoneUtil.convertFacingToPortIndex(facing, side);
+      TileEntityMinecoprocessor link = getLink(i);
+      if (isWirelessMode(portBuffer.getWireless(), portIndex)) {
+        portInputs[portIndex] = receiving != null ? wirelessValue : 0;
+        linked |= 1 << portIndex;
+      } else if (link != null) {
+        portInputs[portIndex] = Settings.clusterOrdering ? link.getLinkedOutput(side.getOpposite()) : linkInputs[i];
+        linked |= 1 << portIndex;
+      } else {
+        portInputs[portIndex] = inputPower[i];
+      }
+    }
+    staleInputs = 0;
+    updateInputPorts(portInputs, linked);
+  }
+
+  private void updateLink(int i, EnumFacing side) {
+    TileEntityMinecoprocessor link = null;
+    if (Settings.directPortLinks) {
+      BlockPos neighbor = pos.offset(side);
+      TileEntity te = world.isBlockLoaded(neighbor) ? world.getTileEntity(neighbor) : null;
+      link = te instanceof TileEntityMinecoprocessor && !te.isInvalid() ? (TileEntityMinecoprocessor) te : null;
+    }
+    if (links[i] != link) {
+      links[i] = link;
+      linkInputs[i] = link != null ? link.getLinkedOutput(side.getOpposite()) : 0;
+      ProcessorScheduler.get(world).invalidateOrder();
+    }
+  }
+
+  /**
+   * attaches the processor to the first adjacent shared memory block
+   */
+  private void updateBus() {
+    bus = null;
+    for (int i = 0; i < 4 && bus == null; i++) {
+      BlockPos neighbor = pos.offset(EnumFacing.getHorizontal(i));
+      TileEntity te = world.isBlockLoaded(neighbor) ? world.getTileEntity(neighbor) : null;
+      if (te instanceof TileEntitySharedMemory && !te.isInvalid()) {
+        bus = ((TileEntitySharedMemory) te).getAttachment(EnumFacing.getHorizontal(i).getOpposite());
+      }
+    }
+  }
+
+  boolean hasLinks() {
+    for (int i = 0; i < 4; i++) {
+      if (getLink(i) != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * the linked processor on the side with the given horizontal index if this processor drives it through an output port, null otherwise
+   */
+  TileEntityMinecoprocessor getDrivenLink(int side) {
+    TileEntityMinecoprocessor link = getLink(side);
+    if (link == null) {
+      return null;
+    }
+    EnumFacing facing = world.getBlockState(pos).getValue(BlockMinecoprocessor.FACING).getOpposite();
+    int portIndex = RedstoneUtil.convertFacingToPortIndex(facing, EnumFacing.getHorizontal(side));
+    return isInOutputMode(portBuffer.getPorts(), portIndex) ? link : null;
   }
 
   public void updateInputPorts(int[] values) {
+    updateInputPorts(values, 0);
+  }
+
+  /**
+   * values are redstone power levels, except for the ports in the linked mask which get the raw value of a linked processor's port
+   */
+  private void updateInputPorts(int[] values, int linked) {
     boolean updated = false;
     for (int i = 0; i < 4; i++) {
-      updated = updateInputPort(i, values[i]) || updated;
+      boolean raw = (linked & (1 << i)) != 0;
+      updated = updateInputPort(i, values[i], raw) || updated;
     }
     if (updated) {
-      processor.wake();
+      portBuffer.requestWake();
+      activate();
+    }
+    if (!executing) {
+      portBuffer.latch(processor);
     }
   }
 
@@ -181,30 +949,42 @@ public class TileEntityMinecoprocessor extends TileEntity implements ITickable,
     return ByteUtil.getBit(adc, portIndex);
   }
 
+  public static boolean isWirelessMode(byte wireless, int portIndex) {
+    return ByteUtil.getBit(wireless, portIndex);
+  }
+
+  public static boolean isFifoMode(byte fifo, int portIndex) {
+    return ByteUtil.getBit(fifo, portIndex);
+  }
+
   public static boolean isInResetMode(byte ports, int portIndex) {
     return ByteUtil.getBit(ports, portIndex) && ByteUtil.getBit(ports, portIndex + 4);
   }
 
   /**
-   * return true for positive edge changes
+   * return true for positive edge changes, raw inputs come from a linked processor and keep all eight bits in ADC mode
    */
-  private boolean updateInputPort(int portIndex, int powerValue) {
-    byte[] registers = processor.getRegisters();
-    byte ports = registers[Register.PORTS.ordinal()];
-    byte adc = registers[Register.ADC.ordinal()];
+  private boolean updateInputPort(int portIndex, int powerValue, boolean raw) {
+    byte ports = portBuffer.getPorts();
+    byte adc = portBuffer.getAdc();
     byte value;
 
     if (isADCMode(adc, portIndex)) {
-      value = RedstoneUtil.powerToPort(powerValue);
+      value = raw ? (byte) powerValue : RedstoneUtil.powerToPort(powerValue);
     } else if (powerValue == 0) {
       value = 0;
     } else {
       value = (byte) 0xff;
     }
 
+    if (raw && isInInputMode(ports, portIndex) && isFifoMode(portBuffer.getFifo(), portIndex)) {
+      // a linked FIFO port receives its values through the FIFO, see transferFifos()
+      return false;
+    }
+
     if (isInInputMode(ports, portIndex) && prevPortValues[portIndex] != value) {
       prevPortValues[portIndex] = value;
-      registers[Register.PF.ordinal() + portIndex] = value;
+      portBuffer.stageInput(portIndex, value, world.getTotalWorldTime());
       return true;
     }
 
@@ -212,7 +992,7 @@ public class TileEntityMinecoprocessor extends TileEntity implements ITickable,
       prevPortValues[portIndex] = value;
 
       if (value != 0) {
-        processor.reset();
+        portBuffer.requestReset();
         return true;
       }
     }
@@ -220,19 +1000,48 @@ public class TileEntityMinecoprocessor extends TileEntity implements ITickable,
     return false;
   }
 
+  private void publishPorts() {
+    if (portBuffer.publish(processor)) {
+      sidePowerStale = true;
+    }
+  }
+
   private byte getPortSignal(int portIndex) {
-    if (!isInOutputMode(processor.getRegisters()[Register.PORTS.ordinal()], portIndex)) {
+    if (!isInOutputMode(portBuffer.getPorts(), portIndex) || isWirelessMode(portBuffer.getWireless(), portIndex)) {
       return 0;
     }
-    byte signal = processor.getRegisters()[Register.PF.ordinal() + portIndex];
+    byte signal = portBuffer.getPort(portIndex);
 
-    if (!isADCMode(processor.getRegisters()[Register.ADC.ordinal()], portIndex)) {
+    if (!isADCMode(portBuffer.getAdc(), portIndex)) {
       return signal == 0 ? 0 : (byte) 0xff;
     }
 
     return signal;
   }
 
+  /**
+   * returns the power for {@link BlockMinecoprocessor#getWeakPower}, the table is rebuilt only after the published port registers changed
+   */
+  public int getSidePower(EnumFacing side) {
+    if (sidePowerStale) {
+      updateSidePower();
+    }
+    return sidePower[side.getIndex()];
+  }
+
+  private void updateSidePower() {
+    sidePowerStale = false;
+    Arrays.fill(sidePower, 0);
+    if (world == null || world.isRemote) {
+      return;
+    }
+    EnumFacing facing = world.getBlockState(pos).getValue(BlockMinecoprocessor.FACING).getOpposite();
+    for (int portIndex = 0; portIndex < 4; portIndex++) {
+      EnumFacing portSide = RedstoneUtil.convertPortIndexToFacing(facing, portIndex);
+      sidePower[portSide.getOpposite().getIndex()] = RedstoneUtil.portToPower(getPortSignal(portIndex));
+    }
+  }
+
   public byte getFrontPortSignal() {
     return getPortSignal(0);
   }
@@ -253,11 +1062,13 @@ public class TileEntityMinecoprocessor extends TileEntity implements ITickable,
     if (world.isRemote) {
       return;
     }
+    awaitExecution();
     processor.reset();
-    for (int portIndex = 0; portIndex < 4; portIndex++) {
-      detectOutputChange(portIndex);
-    }
+    publishPorts();
+    detectOutputChanges();
+    flushOutputChanges();
     loaded = false;
+    activate();
   }
 
   @Override
@@ -299,8 +1110,11 @@ public class TileEntityMinecoprocessor extends TileEntity implements ITickable,
     if (world.isRemote) {
       return;
     }
+    awaitExecution();
     processor.load(null);
+    publishPorts();
     loaded = false;
+    activate();
     setName(null);
     updatePlayers();
   }
@@ -342,8 +1156,11 @@ public class TileEntityMinecoprocessor extends TileEntity implements ITickable,
       }
     }
     updateNameFromCode(code);
+    awaitExecution();
     processor.load(code);
+    publishPorts();
     loaded = false;
+    activate();
     updatePlayers();
   }
 
@@ -456,6 +1273,7 @@ public class TileEntityMinecoprocessor extends TileEntity implements ITickable,
   }
 
   public void enablePlayerGuiUpdates(EntityPlayerMP player, boolean enable) {
+    awaitExecution();
     if (enable) {
       playersToUpdate.add(player);
       updatePlayers();
@@ -465,6 +1283,7 @@ public class TileEntityMinecoprocessor extends TileEntity implements ITickable,
   }
 
   public Processor getProcessor() {
+    awaitExecution();
     return processor;
   }
 
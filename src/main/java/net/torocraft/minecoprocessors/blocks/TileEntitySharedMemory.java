@@ -0,0 +1,68 @@
+package net.torocraft.minecoprocessors.blocks;
+
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.EnumFacing;
+import net.minecraftforge.fml.common.registry.GameRegistry;
+import net.torocraft.minecoprocessors.processor.SharedMemory;
+
+public class TileEntitySharedMemory extends TileEntity {
+
+  private static final String NAME = "shared_memory_tile_entity";
+  private static final String NBT_MEMORY = "memory";
+
+  /**
+   * one attachment per horizontal side, indexed by horizontal index
+   */
+  private final SharedMemory memory = new SharedMemory(4);
+  private boolean unloaded;
+
+  public static void init() {
+    GameRegistry.registerTileEntity(TileEntitySharedMemory.class, NAME);
+  }
+
+  @Override
+  public void onLoad() {
+    if (!world.isRemote) {
+      ProcessorScheduler.get(world).addMemory(this);
+    }
+  }
+
+  @Override
+  public void onChunkUnload() {
+    unloaded = true;
+  }
+
+  boolean isLoaded() {
+    return !unloaded && !isInvalid();
+  }
+
+  /**
+   * the attachment for a processor placed on the given side of this block
+   */
+  SharedMemory.Attachment getAttachment(EnumFacing side) {
+    return memory.getAttachment(side.getHorizontalIndex());
+  }
+
+  /**
+   * applies the writes of the last tick, called by the {@link ProcessorScheduler} while no processor is executing
+   */
+  void commit() {
+    if (memory.commit()) {
+      markDirty();
+    }
+  }
+
+  @Override
+  public void readFromNBT(NBTTagCompound c) {
+    super.readFromNBT(c);
+    memory.setData(c.getByteArray(NBT_MEMORY));
+  }
+
+  @Override
+  public NBTTagCompound writeToNBT(NBTTagCompound cIn) {
+    NBTTagCompound c = super.writeToNBT(cIn);
+    c.setByteArray(NBT_MEMORY, memory.getData());
+    return c;
+  }
+}
@@ -0,0 +1,45 @@
+package net.torocraft.minecoprocessors.blocks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per world timer wheel for processors sleeping in a SLP, owned by the {@link ProcessorScheduler}. A sleeping processor is parked and only
+ * sits in the slot of the tick it wakes up in, so each tick costs one slot no matter how many processors are asleep.
+ */
+class TimerWheel {
+
+  private static final int SLOTS = 256;
+
+  @SuppressWarnings("unchecked")
+  private final List<TileEntityMinecoprocessor>[] slots = new List[SLOTS];
+
+  void schedule(TileEntityMinecoprocessor te, long time) {
+    int slot = (int) (time & (SLOTS - 1));
+    if (slots[slot] == null) {
+      slots[slot] = new ArrayList<>();
+    }
+    slots[slot].add(te);
+  }
+
+  /**
+   * wakes the processors due in the given tick, entries that were rescheduled or belong to a later turn of the wheel are skipped
+   */
+  void advance(long time) {
+    List<TileEntityMinecoprocessor> slot = slots[(int) (time & (SLOTS - 1))];
+    if (slot == null || slot.isEmpty()) {
+      return;
+    }
+    int kept = 0;
+    for (int i = 0; i < slot.size(); i++) {
+      TileEntityMinecoprocessor te = slot.get(i);
+      long wakeTime = te.getWakeTime();
+      if (wakeTime > time && te.isLoaded()) {
+        slot.set(kept++, te);
+      } else if (wakeTime == time && te.isLoaded()) {
+        te.alarm();
+      }
+    }
+    slot.subList(kept, slot.size()).clear();
+  }
+}
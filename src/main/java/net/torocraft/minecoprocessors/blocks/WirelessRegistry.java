@@ -0,0 +1,95 @@
+package net.torocraft.minecoprocessors.blocks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Per world registry of the wireless channels processors transmit and receive on, owned by the {@link ProcessorScheduler}.
+ *
+ * A channel is a single shared cell looked up by its number directly. Values sent during a tick are collected and committed to the cell
+ * once, after all processors of the tick have executed; if several processors send on a channel in the same tick the highest value wins.
+ * Receivers hold on to the cell and read it whenever they are updated, so a value reaches any number of receivers at constant cost. Only
+ * receivers that parked waiting for an event are woken up when the value changes.
+ *
+ * A channel keeps its last value, so a processor that starts receiving later, for example after its chunk was loaded again, sees it right
+ * away.
+ */
+class WirelessRegistry {
+
+  static final int CHANNELS = 256;
+
+  private final Channel[] channels = new Channel[CHANNELS];
+  private final List<Channel> changed = new ArrayList<>();
+
+  Channel getChannel(int channel) {
+    Channel c = channels[channel];
+    if (c == null) {
+      c = new Channel();
+      channels[channel] = c;
+    }
+    return c;
+  }
+
+  void send(int channel, byte value) {
+    Channel c = getChannel(channel);
+    if (!c.changed) {
+      c.changed = true;
+      c.pending = value;
+      changed.add(c);
+    } else if ((value & 0xff) > (c.pending & 0xff)) {
+      c.pending = value;
+    }
+  }
+
+  /**
+   * commits the values sent since the last delivery and wakes up the receivers waiting on the channels that changed
+   */
+  void deliver() {
+    for (Channel c : changed) {
+      c.changed = false;
+      if (c.value == c.pending) {
+        continue;
+      }
+      c.value = c.pending;
+      for (TileEntityMinecoprocessor te : c.waiting) {
+        if (te.isLoaded()) {
+          te.activate();
+        }
+      }
+      c.waiting.clear();
+    }
+    changed.clear();
+  }
+
+  static class Channel {
+
+    /**
+     * in the order they parked, so the wake up order does not depend on identity hash codes
+     */
+    private final Set<TileEntityMinecoprocessor> waiting = Collections.newSetFromMap(new LinkedHashMap<>());
+    private byte value;
+    private byte pending;
+    private boolean changed;
+
+    byte getValue() {
+      return value;
+    }
+
+    /**
+     * wakes the processor up once the value of the channel changes
+     */
+    void await(TileEntityMinecoprocessor te) {
+      waiting.add(te);
+    }
+
+    /**
+     * forgets a processor that stopped receiving on the channel or was removed from the world
+     */
+    void cancel(TileEntityMinecoprocessor te) {
+      waiting.remove(te);
+    }
+  }
+}
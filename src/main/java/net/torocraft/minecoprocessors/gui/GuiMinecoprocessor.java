@@ -36,10 +36,13 @@ public class GuiMinecoprocessor extends net.minecraft.client.gui.inventory.GuiCo
   private GuiButton buttonReset;
   private GuiButton buttonPause;
   private GuiButton buttonStep;
+  private GuiButton buttonClock;
   private GuiButton buttonHelp;
   private Processor processor;
   private byte[] registers = new byte[Register.values().length];
   private byte faultCode = FaultCode.FAULT_STATE_NOMINAL;
+  private int clock;
+  private boolean throttled;
 
   public BlockPos getPos() {
     return minecoprocessor.getPos();
@@ -55,7 +58,7 @@ public class GuiMinecoprocessor extends net.minecraft.client.gui.inventory.GuiCo
     Minecoprocessors.NETWORK.sendToServer(new MessageEnableGuiUpdates(minecoprocessor.getPos(), true));
   }
 
-  public void updateData(NBTTagCompound processorData, String name) {
+  public void updateData(NBTTagCompound processorData, String name, int clock, boolean throttled) {
     if (processor == null) {
       processor = new Processor();
     }
@@ -63,6 +66,8 @@ public class GuiMinecoprocessor extends net.minecraft.client.gui.inventory.GuiCo
     minecoprocessor.setName(I18n.format(name));
     registers = processor.getRegisters();
     faultCode = processor.getFaultCode();
+    this.clock = clock;
+    this.throttled = throttled;
   }
 
   @Override
@@ -126,6 +131,23 @@ public class GuiMinecoprocessor extends net.minecraft.client.gui.inventory.GuiCo
     }
     buttonPause.displayString = I18n.format(pauseText);
     buttonStep.enabled = processor != null && processor.isWait();
+    buttonClock.displayString = toClock(clock);
+    buttonClock.packedFGColour = throttled ? 0xff0000 : 0;
+    if (buttonClock.isMouseOver()) {
+      hoveredFeature.add("Clock");
+      hoveredFeature.add(clock > 0 ? clock + " per tick" : "1 every " + -clock + " ticks");
+      if (throttled) {
+        hoveredFeature.add("Throttled by the server");
+      }
+      hoveredFeature.add("Shift-click to slow down");
+    }
+  }
+
+  private static String toClock(int clock) {
+    if (clock == 0) {
+      return "";
+    }
+    return clock > 0 ? "x" + clock : "1/" + -clock;
   }
 
   private void drawPortRegister(Register register, int x, int y, int mouseX, int mouseY) {
@@ -390,12 +412,14 @@ public class GuiMinecoprocessor extends net.minecraft.client.gui.inventory.GuiCo
 
     buttonReset = new ScaledGuiButton(buttonId++, x, y, buttonWidth, buttonHeight, I18n.format("gui.button.reset"));
     buttonPause = new ScaledGuiButton(buttonId++, x, y + 11, buttonWidth, buttonHeight, I18n.format("gui.button.sleep"));
-    buttonStep = new ScaledGuiButton(buttonId++, x, y + 22, buttonWidth, buttonHeight, I18n.format("gui.button.step"));
+    buttonStep = new ScaledGuiButton(buttonId++, x, y + 22, buttonWidth / 2, buttonHeight, I18n.format("gui.button.step"));
+    buttonClock = new ScaledGuiButton(buttonId++, x + buttonWidth / 2 + 1, y + 22, buttonWidth / 2, buttonHeight, toClock(clock));
     buttonHelp = new ScaledGuiButton(buttonId++, guiLeft + 133, guiTop + 66, 35, buttonHeight, I18n.format("gui.button.help"));
 
     buttonList.add(buttonReset);
     buttonList.add(buttonStep);
     buttonList.add(buttonPause);
+    buttonList.add(buttonClock);
     buttonList.add(buttonHelp);
   }
 
@@ -410,6 +434,10 @@ public class GuiMinecoprocessor extends net.minecraft.client.gui.inventory.GuiCo
     if (button == buttonStep) {
       Minecoprocessors.NETWORK.sendToServer(new MessageProcessorAction(minecoprocessor.getPos(), Action.STEP));
     }
+    if (button == buttonClock) {
+      Action action = isShiftKeyDown() ? Action.CLOCK_DOWN : Action.CLOCK_UP;
+      Minecoprocessors.NETWORK.sendToServer(new MessageProcessorAction(minecoprocessor.getPos(), action));
+    }
     if (button == buttonHelp) {
       // TODO override the book GUI so that it returns the processor GUI when closed
       this.mc.displayGuiScreen(new GuiScreenBook(mc.player, BookCreator.manual, false));
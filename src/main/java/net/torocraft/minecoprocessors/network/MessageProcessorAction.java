@@ -13,7 +13,7 @@ import net.torocraft.minecoprocessors.blocks.TileEntityMinecoprocessor;
 public class MessageProcessorAction implements IMessage {
 
   public enum Action {
-    RESET, PAUSE, STEP
+    RESET, PAUSE, STEP, CLOCK_UP, CLOCK_DOWN
   }
 
   public Action action;
@@ -75,6 +75,7 @@ public class MessageProcessorAction implements IMessage {
         switch (message.action) {
           case PAUSE:
             mp.getProcessor().setWait(!mp.getProcessor().isWait());
+            mp.activate();
             mp.updatePlayers();
             break;
           case RESET:
@@ -82,6 +83,12 @@ public class MessageProcessorAction implements IMessage {
             break;
           case STEP:
             mp.getProcessor().setStep(true);
+            mp.activate();
+            break;
+          case CLOCK_UP:
+          case CLOCK_DOWN:
+            mp.changeClock(message.action == Action.CLOCK_UP);
+            mp.updatePlayers();
             break;
         }
 
@@ -18,6 +18,8 @@ public class MessageProcessorUpdate implements IMessage {
   public BlockPos pos;
   public String name;
   public NBTTagCompound processorData;
+  public int clock;
+  public boolean throttled;
 
   public static void init(int packetId) {
     Minecoprocessors.NETWORK.registerMessage(MessageProcessorUpdate.Handler.class, MessageProcessorUpdate.class, packetId, Side.CLIENT);
@@ -27,10 +29,12 @@ public class MessageProcessorUpdate implements IMessage {
 
   }
 
-  public MessageProcessorUpdate(NBTTagCompound processorData, BlockPos pos, String name) {
+  public MessageProcessorUpdate(NBTTagCompound processorData, BlockPos pos, String name, int clock, boolean throttled) {
     this.processorData = processorData;
     this.pos = pos;
     this.name = name;
+    this.clock = clock;
+    this.throttled = throttled;
   }
 
   @Override
@@ -38,6 +42,8 @@ public class MessageProcessorUpdate implements IMessage {
     processorData = ByteBufUtils.readTag(buf);
     pos = BlockPos.fromLong(buf.readLong());
     name = ByteBufUtils.readUTF8String(buf);
+    clock = buf.readInt();
+    throttled = buf.readBoolean();
   }
 
   @Override
@@ -45,6 +51,8 @@ public class MessageProcessorUpdate implements IMessage {
     ByteBufUtils.writeTag(buf, processorData);
     buf.writeLong(pos.toLong());
     ByteBufUtils.writeUTF8String(buf, name);
+    buf.writeInt(clock);
+    buf.writeBoolean(throttled);
   }
 
   public static class Handler implements IMessageHandler<MessageProcessorUpdate, IMessage> {
@@ -70,7 +78,7 @@ public class MessageProcessorUpdate implements IMessage {
             return;
           }
 
-          GuiMinecoprocessor.INSTANCE.updateData(message.processorData, message.name);
+          GuiMinecoprocessor.INSTANCE.updateData(message.processorData, message.name, message.clock, message.throttled);
         }
       });
 
@@ -0,0 +1,82 @@
+package net.torocraft.minecoprocessors.processor;
+
+/**
+ * Bounded ring buffer of bytes for exactly one producer and one consumer thread, neither of them ever blocks or takes a lock. The
+ * producer only writes the tail and the consumer only writes the head, so a volatile write of either one publishes the bytes before it.
+ */
+public class ByteRing {
+
+  private final byte[] buffer;
+  private final int mask;
+  private volatile int head;
+  private volatile int tail;
+
+  /**
+   * capacity is rounded up to the next power of two
+   */
+  public ByteRing(int capacity) {
+    int size = Integer.highestOneBit(Math.max(1, capacity));
+    buffer = new byte[size < capacity ? size << 1 : size];
+    mask = buffer.length - 1;
+  }
+
+  /**
+   * adds a byte at the tail, returns false without adding it when the ring is full
+   */
+  public boolean offer(byte value) {
+    int t = tail;
+    if (t - head == buffer.length) {
+      return false;
+    }
+    buffer[t & mask] = value;
+    tail = t + 1;
+    return true;
+  }
+
+  /**
+   * removes the byte at the head and returns it as an unsigned value, -1 when the ring is empty
+   */
+  public int poll() {
+    int h = head;
+    if (h == tail) {
+      return -1;
+    }
+    int value = buffer[h & mask] & 0xff;
+    head = h + 1;
+    return value;
+  }
+
+  public int size() {
+    return tail - head;
+  }
+
+  public boolean isEmpty() {
+    return head == tail;
+  }
+
+  public boolean isFull() {
+    return tail - head == buffer.length;
+  }
+
+  public int capacity() {
+    return buffer.length;
+  }
+
+  /**
+   * empties the ring, neither the producer nor the consumer may use it at the same time
+   */
+  public void clear() {
+    head = tail;
+  }
+
+  /**
+   * the bytes from head to tail, neither the producer nor the consumer may use the ring at the same time
+   */
+  public byte[] toArray() {
+    byte[] values = new byte[size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = buffer[(head + i) & mask];
+    }
+    return values;
+  }
+}
@@ -9,6 +9,8 @@ public interface IProcessor {
 
   boolean tick();
 
+  int run(int cycles);
+
   void wake();
 
   void load(List<String> program);
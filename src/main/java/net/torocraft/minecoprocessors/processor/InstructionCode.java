@@ -40,5 +40,16 @@ public enum InstructionCode {
   CLZ,
   CLC,
   SEZ,
-  SEC
+  SEC,
+  VEC,
+  IRET,
+  SLP,
+  EDG,
+  FORK,
+  TAS,
+  XCHG,
+  MOVS,
+  FILL,
+  CMPS,
+  SCAS
 }
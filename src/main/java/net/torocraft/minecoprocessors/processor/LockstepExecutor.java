@@ -0,0 +1,79 @@
+package net.torocraft.minecoprocessors.processor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Steps many processors at once, SIMT style.
+ *
+ * Processors that share a {@link ProgramImage} form a group. Each step the lanes of a group are ordered by the address they are about to
+ * fetch; lanes at the same address are a run that shares one fetch and decode. A divergent branch simply splits a run in two and lanes
+ * that reach the same address again merge back into one run. Every lane still executes through {@link Processor#tick(byte[],
+ * InstructionCode)}, so its semantics are exactly those of a processor ticked on its own.
+ */
+public class LockstepExecutor {
+
+  private static final Comparator<Processor> BY_FETCH_ADDRESS = Comparator.comparingInt(Processor::getFetchAddress);
+
+  private final Map<ProgramImage, List<Processor>> groups = new IdentityHashMap<>();
+  private final List<List<Processor>> spareLanes = new ArrayList<>();
+
+  /**
+   * Advances every runnable processor by one instruction, processors that are not runnable are skipped just like {@link Processor#tick()}
+   * would skip them.
+   */
+  public void step(List<Processor> processors) {
+    for (Processor processor : processors) {
+      if (processor.isMultiCore()) {
+        // its cores fetch from different addresses, so it steps on its own
+        processor.tick();
+      } else if (processor.isRunnable()) {
+        groups.computeIfAbsent(processor.getImage(), image -> takeLanes()).add(processor);
+      }
+    }
+
+    for (Map.Entry<ProgramImage, List<Processor>> group : groups.entrySet()) {
+      stepGroup(group.getKey(), group.getValue());
+      group.getValue().clear();
+      spareLanes.add(group.getValue());
+    }
+    groups.clear();
+  }
+
+  private List<Processor> takeLanes() {
+    return spareLanes.isEmpty() ? new ArrayList<>() : spareLanes.remove(spareLanes.size() - 1);
+  }
+
+  private static void stepGroup(ProgramImage image, List<Processor> lanes) {
+    if (lanes.size() > 1) {
+      lanes.sort(BY_FETCH_ADDRESS);
+    }
+
+    int runStart = 0;
+    while (runStart < lanes.size()) {
+      int address = lanes.get(runStart).getFetchAddress();
+      int runEnd = runStart + 1;
+      while (runEnd < lanes.size() && lanes.get(runEnd).getFetchAddress() == address) {
+        runEnd++;
+      }
+
+      if (address < image.size() && image.getOpcode(address) != null) {
+        byte[] instruction = image.getInstruction(address);
+        InstructionCode code = image.getOpcode(address);
+        for (int i = runStart; i < runEnd; i++) {
+          lanes.get(i).tick(instruction, code);
+        }
+      } else {
+        // let each lane fault on its own
+        for (int i = runStart; i < runEnd; i++) {
+          lanes.get(i).tick();
+        }
+      }
+
+      runStart = runEnd;
+    }
+  }
+}
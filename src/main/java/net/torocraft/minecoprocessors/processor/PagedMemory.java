@@ -0,0 +1,89 @@
+package net.torocraft.minecoprocessors.processor;
+
+/**
+ * Sparse 64 KiB memory of processors with expanded memory.
+ *
+ * The address space is split into pages that are only allocated once a non zero value is written to them, reading from a page that was
+ * never written gives 0. A processor that does not use its expanded memory therefore costs no more than the empty page table.
+ */
+public class PagedMemory {
+
+  public static final int SIZE = 0x10000;
+  public static final int PAGE_SIZE = 256;
+  public static final int PAGE_COUNT = SIZE / PAGE_SIZE;
+
+  private byte[][] pages;
+
+  public byte read(int address) {
+    byte[] page = pages == null ? null : pages[address / PAGE_SIZE];
+    if (page == null) {
+      if (address < 0 || address >= SIZE) {
+        throw new ArrayIndexOutOfBoundsException(address);
+      }
+      return 0;
+    }
+    return page[address % PAGE_SIZE];
+  }
+
+  public void write(int address, byte value) {
+    if (address < 0 || address >= SIZE) {
+      throw new ArrayIndexOutOfBoundsException(address);
+    }
+    if (pages == null) {
+      if (value == 0) {
+        return;
+      }
+      pages = new byte[PAGE_COUNT][];
+    }
+    byte[] page = pages[address / PAGE_SIZE];
+    if (page == null) {
+      if (value == 0) {
+        return;
+      }
+      page = new byte[PAGE_SIZE];
+      pages[address / PAGE_SIZE] = page;
+    }
+    page[address % PAGE_SIZE] = value;
+  }
+
+  /**
+   * a copy of the page with the given index, null if it was never written or only holds zeros
+   */
+  public byte[] getPage(int index) {
+    byte[] page = pages == null ? null : pages[index];
+    if (page == null) {
+      return null;
+    }
+    for (byte value : page) {
+      if (value != 0) {
+        return page.clone();
+      }
+    }
+    return null;
+  }
+
+  public void setPage(int index, byte[] values) {
+    for (int i = 0; i < Math.min(values.length, PAGE_SIZE); i++) {
+      write(index * PAGE_SIZE + i, values[i]);
+    }
+  }
+
+  /**
+   * the number of allocated pages
+   */
+  public int getAllocatedPages() {
+    int count = 0;
+    if (pages != null) {
+      for (byte[] page : pages) {
+        if (page != null) {
+          count++;
+        }
+      }
+    }
+    return count;
+  }
+
+  public void clear() {
+    pages = null;
+  }
+}
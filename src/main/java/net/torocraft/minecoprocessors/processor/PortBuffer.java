@@ -0,0 +1,190 @@
+package net.torocraft.minecoprocessors.processor;
+
+import java.util.Arrays;
+
+/**
+ * Double buffered port interface between a processor and the world around it.
+ *
+ * The world side stages input values, wake and reset requests, and reads the port registers as they were last published. The processor
+ * only sees staged inputs once they are latched before it executes, and the world only sees its outputs once they are published after it
+ * executed. Between a latch and the following publish the world never touches the processor, so it can execute on another thread.
+ */
+public class PortBuffer {
+
+  private static final int PORT_COUNT = 4;
+  private static final long NO_TIME = Long.MIN_VALUE;
+
+  private final byte[] staged = new byte[PORT_COUNT];
+  private int stagedMask;
+  private boolean wakeRequested;
+  private boolean resetRequested;
+  private boolean alarmRequested;
+  private long alarmTime;
+
+  /**
+   * Edges of the staged inputs between zero and non zero since the last latch, rising edges first and falling edges after them. An edge is
+   * counted once per direction and tick, so an input that settles through several values within one tick is not counted twice.
+   */
+  private final boolean[] levels = new boolean[PORT_COUNT];
+  private final int[] edges = new int[PORT_COUNT * 2];
+  private final long[] edgeTimes = new long[PORT_COUNT * 2];
+  private boolean edgesPending;
+
+  private final byte[] published = new byte[PORT_COUNT];
+  private byte publishedPorts;
+  private byte publishedAdc;
+  private byte publishedFifo;
+  private byte publishedWireless;
+  private byte publishedChannel;
+
+  public PortBuffer() {
+    Arrays.fill(edgeTimes, NO_TIME);
+  }
+
+  public void stageInput(int portIndex, byte value) {
+    stageInput(portIndex, value, NO_TIME);
+  }
+
+  /**
+   * stages an input value that arrived in the given world tick
+   */
+  public void stageInput(int portIndex, byte value, long time) {
+    staged[portIndex] = value;
+    stagedMask |= 1 << portIndex;
+
+    boolean level = value != 0;
+    if (levels[portIndex] != level) {
+      levels[portIndex] = level;
+      int index = level ? portIndex : portIndex + PORT_COUNT;
+      if (time == NO_TIME || edgeTimes[index] != time) {
+        edgeTimes[index] = time;
+        edges[index]++;
+        edgesPending = true;
+      }
+    }
+  }
+
+  public void requestWake() {
+    wakeRequested = true;
+  }
+
+  public void requestReset() {
+    resetRequested = true;
+  }
+
+  /**
+   * ends the SLPs that are up by the given tick with the next latch
+   */
+  public void requestAlarm(long time) {
+    alarmTime = alarmRequested ? Math.max(alarmTime, time) : time;
+    alarmRequested = true;
+  }
+
+  /**
+   * Applies the staged inputs and requests to the processor, must not be called while the processor is executing. The edges counted since
+   * the last latch are handed over in one go and raise the port interrupts, so a pulse shorter than the time between two latches is not
+   * lost. A wake request does not end a SLP, see {@link Processor#wake()}.
+   */
+  public void latch(Processor processor) {
+    if (resetRequested) {
+      resetRequested = false;
+      processor.reset();
+    }
+
+    if (stagedMask != 0) {
+      byte[] registers = processor.getRegisters();
+      for (int i = 0; i < PORT_COUNT; i++) {
+        if ((stagedMask & (1 << i)) != 0) {
+          registers[Register.PF.ordinal() + i] = staged[i];
+        }
+      }
+      stagedMask = 0;
+    }
+
+    if (edgesPending) {
+      edgesPending = false;
+      for (int i = 0; i < PORT_COUNT; i++) {
+        int rising = edges[i];
+        int falling = edges[i + PORT_COUNT];
+        if (rising > 0) {
+          processor.addEdges(i, rising);
+          processor.interrupt(i, true);
+        }
+        if (falling > 0) {
+          processor.interrupt(i, false);
+        }
+      }
+      Arrays.fill(edges, 0);
+      processor.dispatchInterrupt();
+    }
+
+    if (alarmRequested) {
+      alarmRequested = false;
+      processor.endSleep(alarmTime);
+    }
+
+    if (wakeRequested) {
+      wakeRequested = false;
+      processor.wake();
+    }
+  }
+
+  /**
+   * takes the input levels from the latched port registers of a processor that was just loaded, so an input that is still high when it is
+   * staged again does not count as a new edge
+   */
+  public void loadLevels(Processor processor) {
+    byte[] registers = processor.getRegisters();
+    for (int i = 0; i < PORT_COUNT; i++) {
+      levels[i] = registers[Register.PF.ordinal() + i] != 0;
+    }
+  }
+
+  /**
+   * copies the port registers of the processor to the world side, must not be called while the processor is executing, returns true if
+   * any of the published values changed
+   */
+  public boolean publish(Processor processor) {
+    byte[] registers = processor.getRegisters();
+    boolean changed = publishedPorts != registers[Register.PORTS.ordinal()] || publishedAdc != registers[Register.ADC.ordinal()]
+        || publishedFifo != registers[Register.FIFO.ordinal()] || publishedWireless != registers[Register.WL.ordinal()]
+        || publishedChannel != registers[Register.CHAN.ordinal()];
+    for (int i = 0; i < PORT_COUNT; i++) {
+      changed |= published[i] != registers[Register.PF.ordinal() + i];
+    }
+    System.arraycopy(registers, Register.PF.ordinal(), published, 0, PORT_COUNT);
+    publishedPorts = registers[Register.PORTS.ordinal()];
+    publishedAdc = registers[Register.ADC.ordinal()];
+    publishedFifo = registers[Register.FIFO.ordinal()];
+    publishedWireless = registers[Register.WL.ordinal()];
+    publishedChannel = registers[Register.CHAN.ordinal()];
+    return changed;
+  }
+
+  public byte getPort(int portIndex) {
+    return published[portIndex];
+  }
+
+  public byte getPorts() {
+    return publishedPorts;
+  }
+
+  public byte getAdc() {
+    return publishedAdc;
+  }
+
+  public byte getFifo() {
+    return publishedFifo;
+  }
+
+  public byte getWireless() {
+    return publishedWireless;
+  }
+
+  /**
+   * the wireless channel as an unsigned number, 0 when wireless is off
+   */
+  public int getChannel() {
+    return publishedChannel & 0xff;
+  }
+}
@@ -16,6 +16,7 @@ import net.torocraft.minecoprocessors.util.ParseException;
 public class Processor implements IProcessor {
 
   private static final int MEMORY_SIZE = 64;
+  private static final InstructionCode[] INSTRUCTION_CODES = InstructionCode.values();
   private static final String NBT_STACK = "stack";
   private static final String NBT_REGISTERS = "registers";
   private static final String NBT_PROGRAM = "program";
@@ -23,12 +24,27 @@ public class Processor implements IProcessor {
   private static final String NBT_FLAGS = "flags";
   private static final String NBT_FAULTCODE = "faultCode";
   private static final String NBT_ERROR = "error";
+  private static final String NBT_FIFO_IN = "fifoIn";
+  private static final String NBT_FIFO_OUT = "fifoOut";
+  private static final String NBT_VECTORS = "vectors";
+  private static final String NBT_EDGES = "edges";
+  private static final String NBT_CORES = "cores";
+  private static final String NBT_PAGES = "pages";
+  private static final String NBT_SLEEP = "sleep";
+  private static final String NBT_STALL = "stall";
+  private static final int FIFO_SIZE = 16;
+  private static final int EXPANDED_MEMORY_START = MEMORY_SIZE + SharedMemory.SIZE;
+  private static final int BLOCK_BYTES_PER_CYCLE = 8;
+  private static final int CORE_REGISTERS = 4;
+  private static final int CORE_STATE_SIZE = CORE_REGISTERS + 6;
+  public static final int MAX_CORES = 4;
 
   /*
    * program
    */
   List<Label> labels = new ArrayList<>();
   List<byte[]> program = new ArrayList<>();
+  private ProgramImage image;
 
   /*
    * state
@@ -36,6 +52,61 @@ public class Processor implements IProcessor {
   byte[] instruction;
   protected byte[] stack = new byte[MEMORY_SIZE];
   byte[] registers = new byte[Register.values().length];
+  private SharedMemory.Attachment bus;
+
+  /**
+   * memory above the shared memory bus up to {@link #memorySize}, only reachable through 16 bit pointers like [a:b]
+   */
+  private final PagedMemory memory = new PagedMemory();
+  private int memorySize = MEMORY_SIZE;
+
+  /**
+   * interrupt handlers per port as label indexes, -1 for none, see {@link Register#IE}
+   */
+  private byte[] vectors = newVectors();
+  private int pendingInterrupts;
+  private boolean interrupted;
+
+  /**
+   * true while the core waits for the end of a SLP, and the world tick the SLP ends in
+   */
+  private boolean sleeping;
+  private long wakeTime;
+
+  /**
+   * The world tick the processor executes in, see {@link #setTime(long)}. Until it is first set after reading from NBT the wake times of
+   * sleeping cores are the ticks they had left when they were saved.
+   */
+  private long time;
+  private boolean timeSet;
+
+  /**
+   * rising edges per input port since the program last read them with EDG, saturating at 255
+   */
+  private byte[] edgeCounts = new byte[4];
+
+  /**
+   * Cores of a multi-core processor, see {@link #setCoreCount(int)}. Every core has its own A to D registers, IP, SP and flags, the memory
+   * and all other registers are shared. The fields of this processor hold the context of the core that is executing, the contexts of the
+   * others are parked in {@link #cores}; outside of {@link #tick()} that is always core 0.
+   */
+  private int coreCount = 1;
+  private int startedCores = 1;
+  private int currentCore;
+  private Core[] cores;
+
+  /**
+   * FIFO buffers of the ports in FIFO mode, indexed by port, see {@link Register#FIFO}
+   */
+  private final ByteRing[] inputFifos = new ByteRing[4];
+  private final ByteRing[] outputFifos = new ByteRing[4];
+
+  {
+    for (int i = 0; i < 4; i++) {
+      inputFifos[i] = new ByteRing(FIFO_SIZE);
+      outputFifos[i] = new ByteRing(FIFO_SIZE);
+    }
+  }
 
   /**
     * Fault Code status
@@ -77,12 +148,19 @@ public class Processor implements IProcessor {
   private boolean step;
   private String error;
 
+  /**
+   * cycles left of the block instruction that executed last, see {@link #blockCount()}
+   */
+  private int stall;
+
   void flush() {
     reset();
     stack = new byte[MEMORY_SIZE];
+    memory.clear();
 
     labels.clear();
     program.clear();
+    image = null;
   }
 
   // TODO move to util class
@@ -99,16 +177,41 @@ public class Processor implements IProcessor {
     wait = false;
     step = false;
     error = null;
+    stall = 0;
     ip = 0;
     sp = 0;
     registers = new byte[Register.values().length];
     registers[Register.PORTS.ordinal()] = (byte) 0xb1110;
     faultCode = FaultCode.FAULT_STATE_NOMINAL;
+    vectors = newVectors();
+    pendingInterrupts = 0;
+    interrupted = false;
+    sleeping = false;
+    wakeTime = 0;
+    edgeCounts = new byte[4];
+    startedCores = 1;
+    currentCore = 0;
+    cores = null;
+    for (int i = 0; i < 4; i++) {
+      inputFifos[i].clear();
+      outputFifos[i].clear();
+    }
   }
 
+  /**
+   * Ends the WFE of every core. Cores sleeping in a SLP keep sleeping, and while interrupts are enabled core 0 only wakes up for an
+   * interrupt.
+   */
   @Override
   public void wake() {
-    wait = false;
+    if (!sleeping && !isInterruptDriven()) {
+      wait = false;
+    }
+    for (int core = 1; core < coreCount; core++) {
+      if ((startedCores & (1 << core)) != 0 && !cores[core].sleeping) {
+        cores[core].wait = false;
+      }
+    }
   }
 
   @Override
@@ -132,24 +235,28 @@ public class Processor implements IProcessor {
     long flags = 0;
     flags = ByteUtil.setShort(flags, ip, 3);
     flags = ByteUtil.setByte(flags, sp, 5);
-    // byte 4  not currently used
+    flags = ByteUtil.setByte(flags, (byte) pendingInterrupts, 4);
     flags = ByteUtil.setBit(flags, fault, 0);
     flags = ByteUtil.setBit(flags, zero, 1);
     flags = ByteUtil.setBit(flags, overflow, 2);
     flags = ByteUtil.setBit(flags, carry, 3);
     flags = ByteUtil.setBit(flags, wait, 4);
+    flags = ByteUtil.setBit(flags, interrupted, 5);
+    flags = ByteUtil.setBit(flags, sleeping, 6);
     return flags;
   }
 
   void unPackFlags(long flags) {
     ip = ByteUtil.getShort(flags, 3);
     sp = ByteUtil.getByte(flags, 5);
-    // byte 4 not currently used
+    pendingInterrupts = ByteUtil.getByte(flags, 4) & 0x0f;
     fault = ByteUtil.getBit(flags, 0);
     zero = ByteUtil.getBit(flags, 1);
     overflow = ByteUtil.getBit(flags, 2);
     carry = ByteUtil.getBit(flags, 3);
     wait = ByteUtil.getBit(flags, 4);
+    interrupted = ByteUtil.getBit(flags, 5);
+    sleeping = ByteUtil.getBit(flags, 6);
   }
 
   private static byte[] addRegistersIfMissing(byte[] registersIn) {
@@ -185,6 +292,74 @@ public class Processor implements IProcessor {
     for (NBTBase tag : labelTag) {
       labels.add(Label.fromNbt((NBTTagCompound) tag));
     }
+    image = null;
+
+    vectors = c.hasKey(NBT_VECTORS) ? c.getByteArray(NBT_VECTORS) : newVectors();
+    edgeCounts = c.hasKey(NBT_EDGES) ? c.getByteArray(NBT_EDGES) : new byte[4];
+    wakeTime = c.getByte(NBT_SLEEP) & 0xff;
+    stall = c.getByte(NBT_STALL) & 0xff;
+    timeSet = false;
+    readCores(c.getByteArray(NBT_CORES));
+
+    memory.clear();
+    NBTTagCompound pages = c.getCompoundTag(NBT_PAGES);
+    for (String key : pages.getKeySet()) {
+      memory.setPage(Integer.parseInt(key), pages.getByteArray(key));
+    }
+
+    for (int i = 0; i < 4; i++) {
+      readFifo(inputFifos[i], c.getByteArray(NBT_FIFO_IN + i));
+      readFifo(outputFifos[i], c.getByteArray(NBT_FIFO_OUT + i));
+    }
+  }
+
+  /**
+   * the mask of started cores followed by the parked contexts of cores 1 and up
+   */
+  private byte[] writeCores() {
+    byte[] state = new byte[1 + (MAX_CORES - 1) * CORE_STATE_SIZE];
+    state[0] = (byte) startedCores;
+    for (int i = 1; i < cores.length; i++) {
+      cores[i].write(state, 1 + (i - 1) * CORE_STATE_SIZE, getSleepRemaining(cores[i].wakeTime));
+    }
+    return state;
+  }
+
+  private void readCores(byte[] state) {
+    currentCore = 0;
+    cores = null;
+    startedCores = 1;
+    if (state.length != 1 + (MAX_CORES - 1) * CORE_STATE_SIZE) {
+      return;
+    }
+    cores = newCores();
+    for (int i = 1; i < MAX_CORES; i++) {
+      cores[i].read(state, 1 + (i - 1) * CORE_STATE_SIZE);
+    }
+    startedCores = (state[0] & 0x0f) | 1;
+  }
+
+  /**
+   * the ticks left until the given wake time, between 1 and the 255 ticks of the longest SLP
+   */
+  private byte getSleepRemaining(long wakeTime) {
+    long remaining = timeSet ? wakeTime - time : wakeTime;
+    return (byte) Math.max(1, Math.min(255, remaining));
+  }
+
+  private static Core[] newCores() {
+    Core[] cores = new Core[MAX_CORES];
+    for (int i = 0; i < MAX_CORES; i++) {
+      cores[i] = new Core();
+    }
+    return cores;
+  }
+
+  private static void readFifo(ByteRing fifo, byte[] values) {
+    fifo.clear();
+    for (byte value : values) {
+      fifo.offer(value);
+    }
   }
 
   @Override
@@ -208,22 +383,113 @@ public class Processor implements IProcessor {
       labelTag.appendTag(label.toNbt());
     }
     c.setTag(NBT_LABELS, labelTag);
+    c.setByteArray(NBT_VECTORS, vectors);
+    c.setByteArray(NBT_EDGES, edgeCounts);
+    if (sleeping) {
+      c.setByte(NBT_SLEEP, getSleepRemaining(wakeTime));
+    }
+    if (stall > 0) {
+      c.setByte(NBT_STALL, (byte) stall);
+    }
+    if (startedCores != 1) {
+      c.setByteArray(NBT_CORES, writeCores());
+    }
+
+    NBTTagCompound pages = new NBTTagCompound();
+    for (int i = 0; i < PagedMemory.PAGE_COUNT; i++) {
+      byte[] page = memory.getPage(i);
+      if (page != null) {
+        pages.setByteArray(Integer.toString(i), page);
+      }
+    }
+    if (!pages.hasNoTags()) {
+      c.setTag(NBT_PAGES, pages);
+    }
+
+    for (int i = 0; i < 4; i++) {
+      if (!inputFifos[i].isEmpty()) {
+        c.setByteArray(NBT_FIFO_IN + i, inputFifos[i].toArray());
+      }
+      if (!outputFifos[i].isEmpty()) {
+        c.setByteArray(NBT_FIFO_OUT + i, outputFifos[i].toArray());
+      }
+    }
 
     return c;
   }
 
   /**
-   * returns true if GUI should be updated after this tick
+   * returns true if GUI should be updated after this tick, a multi-core processor executes one instruction on each of its started cores
    */
   @Override
   public boolean tick() {
+    if (startedCores == 1) {
+      return tick(null, null);
+    }
+
+    boolean executed = false;
+    for (int core = 0; core < coreCount; core++) {
+      if ((startedCores & (1 << core)) != 0) {
+        switchCore(core);
+        executed |= tick(null, null);
+      }
+    }
+    switchCore(0);
+    return executed;
+  }
+
+  /**
+   * parks the context of the executing core and loads the context of the given one
+   */
+  private void switchCore(int core) {
+    if (core == currentCore) {
+      return;
+    }
+    cores[currentCore].save(this);
+    cores[core].load(this);
+    currentCore = core;
+  }
+
+  /**
+   * executes up to the given number of instructions in one go, stops early once the processor waits or faults, returns the number of
+   * instructions that were executed
+   */
+  @Override
+  public int run(int cycles) {
+    int executed = 0;
+    while (executed < cycles && tick()) {
+      executed++;
+    }
+    return executed;
+  }
+
+  /**
+   * Same as {@link #tick()}, but executes an instruction that was already fetched from {@link #getFetchAddress()} and decoded by the caller
+   * instead of fetching it from this processor's own program. The instruction must come from an image equal to {@link #getImage()}.
+   */
+  boolean tick(byte[] fetched, InstructionCode code) {
     if (fault || (wait && !step)) {
       return false;
     }
     step = false;
 
+    if (stall > 0) {
+      stall--;
+      return true;
+    }
+
+    if ((registers[Register.FIFO.ordinal()] & 0x0f) != 0) {
+      updateFifoStatus();
+    }
+
     try {
-      process();
+      if (fetched == null) {
+        process();
+      } else {
+        instruction = fetched;
+        ip = (short) (getFetchAddress() + 1);
+        execute(code);
+      }
       // TODO handle parse exception (actually make a new exception type to use in a running processor)
     } catch (Exception e) {
       Minecoprocessors.proxy.handleUnexpectedException(e);
@@ -258,7 +524,11 @@ public class Processor implements IProcessor {
 
     ip++;
 
-    switch (InstructionCode.values()[instruction[0]]) {
+    execute(INSTRUCTION_CODES[instruction[0]]);
+  }
+
+  private void execute(InstructionCode code) throws ParseException {
+    switch (code) {
       case ADD:
         processAdd();
         return;
@@ -331,6 +601,9 @@ public class Processor implements IProcessor {
       case WFE:
         processWfe();
         return;
+      case SLP:
+        processSlp();
+        return;
       case INC:
         processInc();
         return;
@@ -370,12 +643,45 @@ public class Processor implements IProcessor {
       case SEC:
         processSec();
         break;
+      case VEC:
+        processVec();
+        break;
+      case IRET:
+        processIret();
+        break;
+      case EDG:
+        processEdg();
+        break;
+      case FORK:
+        processFork();
+        break;
+      case TAS:
+        processTas();
+        break;
+      case XCHG:
+        processXchg();
+        break;
+      case MOVS:
+        processMovs();
+        break;
+      case FILL:
+        processFill();
+        break;
+      case CMPS:
+        processCmps();
+        break;
+      case SCAS:
+        processScas();
+        break;
       default:
         throw new RuntimeException("InstructionCode enum had unexpected value");
     }
   }
 
   void processMov() throws ParseException {
+    if (isRegisterOperand(instruction, 1)) {
+      pullFifo(instruction[2]);
+    }
     byte source = getVariableOperand(1);
     if (isLabelOperand(instruction, 0)) {
       throw new ParseException(InstructionUtil.compileLine(instruction, labels, (short) 0), InstructionUtil.ERROR_LABEL_IN_FIRST_OPERAND);
@@ -383,12 +689,74 @@ public class Processor implements IProcessor {
       writeToMemory(source);
     } else {
       registers[instruction[1]] = source;
+      pushFifo(instruction[1], source);
+    }
+  }
+
+  /**
+   * moving from an input port in FIFO mode first loads the next value of its FIFO into the port register, if there is one
+   */
+  private void pullFifo(int register) {
+    int port = register - Register.PF.ordinal();
+    if (port >= 0 && port < 4 && isFifoPort(port, true)) {
+      int value = inputFifos[port].poll();
+      if (value >= 0) {
+        registers[register] = (byte) value;
+      }
+    }
+  }
+
+  /**
+   * moving to an output port in FIFO mode also adds the value to its FIFO, it is dropped when the FIFO is full
+   */
+  private void pushFifo(int register, byte value) {
+    int port = register - Register.PF.ordinal();
+    if (port >= 0 && port < 4 && isFifoPort(port, false)) {
+      outputFifos[port].offer(value);
+    }
+  }
+
+  private boolean isFifoPort(int port, boolean input) {
+    byte ports = registers[Register.PORTS.ordinal()];
+    return ByteUtil.getBit(registers[Register.FIFO.ordinal()], port) && !ByteUtil.getBit(ports, port + 4)
+        && ByteUtil.getBit(ports, port) == input;
+  }
+
+  /**
+   * sets the status bits of the FIFO register: data available for input ports, full for output ports
+   */
+  private void updateFifoStatus() {
+    byte fifo = (byte) (registers[Register.FIFO.ordinal()] & 0x0f);
+    for (int port = 0; port < 4; port++) {
+      if ((isFifoPort(port, true) && !inputFifos[port].isEmpty()) || (isFifoPort(port, false) && outputFifos[port].isFull())) {
+        fifo = ByteUtil.setBit(fifo, true, port + 4);
+      }
+    }
+    registers[Register.FIFO.ordinal()] = fifo;
+  }
+
+  /**
+   * writes to a register or memory operand, the operand of a literal or label faults
+   */
+  private void writeOperand(int operandIndex, byte value) {
+    if (isMemoryReferenceOperand(instruction, operandIndex)) {
+      try {
+        writeMemory(getMemoryAddress(operandIndex), value);
+      } catch (ArrayIndexOutOfBoundsException e) {
+        faultCode = FaultCode.FAULT_OUT_OF_BOUNDS;
+        fault = true;
+      }
+    } else if (isRegisterOperand(instruction, operandIndex)) {
+      registers[instruction[operandIndex + 1]] = value;
+    } else {
+      faultCode = FaultCode.FAULT_OUT_OF_BOUNDS;
+      fault = true;
     }
   }
 
   private void writeToMemory(byte source) {
     try {
-      stack[getVariableOperandNoReference(0) + getMemoryOffset(0)] = source;
+      writeMemory(getMemoryAddress(0), source);
     } catch (ArrayIndexOutOfBoundsException e) {
       faultCode = FaultCode.FAULT_OUT_OF_BOUNDS;
       fault = true;
@@ -504,6 +872,71 @@ public class Processor implements IProcessor {
     wait = true;
   }
 
+  void processSlp() {
+    int ticks = getVariableOperand(0) & 0xff;
+    if (ticks == 0) {
+      return;
+    }
+    wakeTime = time + ticks;
+    sleeping = true;
+    wait = true;
+  }
+
+  /**
+   * Sets the world tick the processor executes in, must be called before it executes. The first call after reading from NBT turns the
+   * ticks the sleeping cores had left into the tick they wake up in.
+   */
+  public void setTime(long time) {
+    if (!timeSet) {
+      timeSet = true;
+      wakeTime += time;
+      if (cores != null) {
+        for (Core core : cores) {
+          core.wakeTime += time;
+        }
+      }
+    }
+    this.time = time;
+  }
+
+  /**
+   * the earliest tick a sleeping core wakes up in, -1 if no core is sleeping
+   */
+  public long getWakeTime() {
+    long earliest = sleeping ? wakeTime : -1;
+    for (int core = 1; core < coreCount; core++) {
+      Core c = cores[core];
+      if ((startedCores & (1 << core)) != 0 && c.sleeping && (earliest < 0 || c.wakeTime < earliest)) {
+        earliest = c.wakeTime;
+      }
+    }
+    return earliest;
+  }
+
+  /**
+   * ends the SLP of every core whose time is up by the given tick, cores that are not sleeping are not woken up
+   */
+  public void endSleep(long time) {
+    if (sleeping && wakeTime <= time) {
+      sleeping = false;
+      wait = false;
+    }
+    for (int core = 1; core < coreCount; core++) {
+      Core c = cores[core];
+      if ((startedCores & (1 << core)) != 0 && c.sleeping && c.wakeTime <= time) {
+        c.sleeping = false;
+        c.wait = false;
+      }
+    }
+  }
+
+  /**
+   * true while any core is sleeping in a SLP
+   */
+  public boolean isSleeping() {
+    return getWakeTime() >= 0;
+  }
+
   void processHlt() {
     faultCode = FaultCode.FAULT_HLT_INSTRUCTION;
     fault = true;
@@ -555,15 +988,14 @@ public class Processor implements IProcessor {
 
   void processDjnz() {
     processDec();
-    byte tmp = instruction[1];
-    instruction[1] = instruction[2];
-    processJnz();
-    instruction[1] = tmp;
+    if (!zero) {
+      ip = labels.get(instruction[2]).address;
+    }
   }
 
   void processPushAll() {
     for (int i = 0; i < 4; i++) {
-      if (sp >= stack.length) {
+      if (sp >= stackLimit()) {
         faultCode = FaultCode.FAULT_STACK_OVERFLOW;
         fault = true;
         return;
@@ -574,7 +1006,7 @@ public class Processor implements IProcessor {
   }
 
   void processPush() {
-    if (sp >= stack.length) {
+    if (sp >= stackLimit()) {
       faultCode = FaultCode.FAULT_STACK_OVERFLOW;
       fault = true;
       return;
@@ -584,7 +1016,7 @@ public class Processor implements IProcessor {
   }
 
   void processPop() {
-    if (sp <= 0) {
+    if (sp <= stackBase(currentCore)) {
       faultCode = FaultCode.FAULT_STACK_UNDERFLOW;
       fault = true;
       return;
@@ -594,7 +1026,7 @@ public class Processor implements IProcessor {
 
   void processPopAll() {
     for (int i = 3; i >= 0; i--) {
-      if (sp <= 0) {
+      if (sp <= stackBase(currentCore)) {
         faultCode = FaultCode.FAULT_STACK_UNDERFLOW;
         fault = true;
         return;
@@ -605,7 +1037,7 @@ public class Processor implements IProcessor {
   }
 
   void processCall() {
-    if (sp >= stack.length - 1) {
+    if (sp >= stackLimit() - 1) {
       faultCode = FaultCode.FAULT_STACK_OVERFLOW;
       fault = true;
       return;
@@ -616,7 +1048,7 @@ public class Processor implements IProcessor {
   }
 
   void processRet() {
-    if (sp <= 1) {
+    if (sp <= stackBase(currentCore) + 1) {
       faultCode = FaultCode.FAULT_STACK_UNDERFLOW;
       fault = true;
       error = "ret";
@@ -626,6 +1058,277 @@ public class Processor implements IProcessor {
     ip = ByteUtil.setByte(ip, stack[--sp], 0);
   }
 
+  void processVec() {
+    int port = instruction[1] - Register.PF.ordinal();
+    if (!isRegisterOperand(instruction, 0) || !isLabelOperand(instruction, 1) || port < 0 || port >= 4) {
+      faultCode = FaultCode.FAULT_OUT_OF_BOUNDS;
+      fault = true;
+      return;
+    }
+    vectors[port] = instruction[2];
+  }
+
+  void processIret() {
+    if (!interrupted || currentCore != 0 || sp <= 2) {
+      faultCode = FaultCode.FAULT_STACK_UNDERFLOW;
+      fault = true;
+      error = "iret";
+      return;
+    }
+    byte flags = stack[--sp];
+    zero = ByteUtil.getBit(flags, 0);
+    carry = ByteUtil.getBit(flags, 1);
+    overflow = ByteUtil.getBit(flags, 2);
+    ip = ByteUtil.setByte(ip, stack[--sp], 1);
+    ip = ByteUtil.setByte(ip, stack[--sp], 0);
+    interrupted = false;
+    dispatchInterrupt();
+  }
+
+  void processEdg() {
+    int port = instruction[2] - Register.PF.ordinal();
+    if (!isRegisterOperand(instruction, 0) || !isRegisterOperand(instruction, 1) || port < 0 || port >= 4) {
+      faultCode = FaultCode.FAULT_OUT_OF_BOUNDS;
+      fault = true;
+      return;
+    }
+    registers[instruction[1]] = edgeCounts[port];
+    edgeCounts[port] = 0;
+  }
+
+  /**
+   * starts the lowest idle core at the label with cleared registers and flags, C is set when every core was already started. Each core gets
+   * its own part of the stack, the fork faults if the core below has already pushed into the part of the new one.
+   */
+  void processFork() {
+    int core = Integer.numberOfTrailingZeros(~startedCores);
+    if (core >= coreCount) {
+      carry = true;
+      return;
+    }
+    carry = false;
+    if (cores == null) {
+      cores = newCores();
+    }
+    if ((core - 1 == currentCore ? sp : cores[core - 1].sp) > stackBase(core)) {
+      faultCode = FaultCode.FAULT_STACK_OVERFLOW;
+      fault = true;
+      return;
+    }
+    cores[core].start(labels.get(instruction[1]).address, (byte) stackBase(core));
+    startedCores |= 1 << core;
+  }
+
+  /**
+   * the bottom of the given core's part of the stack
+   */
+  private int stackBase(int core) {
+    return core * MEMORY_SIZE / coreCount;
+  }
+
+  /**
+   * the end of the executing core's part of the stack, which is where the stack of the next started core begins
+   */
+  private int stackLimit() {
+    int above = startedCores & -(2 << currentCore);
+    return above == 0 ? MEMORY_SIZE : stackBase(Integer.numberOfTrailingZeros(above));
+  }
+
+  /**
+   * test-and-set, Z is set if the operand was 0 and the operand is set to 1 in the same instruction
+   */
+  void processTas() {
+    byte value = getVariableOperand(0);
+    zero = value == 0;
+    writeOperand(0, (byte) 1);
+  }
+
+  void processXchg() {
+    byte first = getVariableOperand(0);
+    byte second = getVariableOperand(1);
+    writeOperand(0, second);
+    if (!fault) {
+      writeOperand(1, first);
+    }
+  }
+
+  /**
+   * Takes the byte count of a block instruction from C. A block instruction takes one cycle plus one for every 8 bytes it started, the
+   * processor stalls for the extra cycles before the next instruction.
+   */
+  private int blockCount() {
+    int count = registers[Register.C.ordinal()] & 0xff;
+    stall = (count + BLOCK_BYTES_PER_CYCLE - 1) / BLOCK_BYTES_PER_CYCLE;
+    return count;
+  }
+
+  private static boolean isStackBlock(int address, int count) {
+    return address >= 0 && address + count <= MEMORY_SIZE;
+  }
+
+  /**
+   * the start address of a block, a memory reference like [b] or [a:b] is resolved like any other memory reference, a register or literal
+   * is taken as an unsigned address
+   */
+  private int getBlockAddress(int operandIndex) {
+    if (isMemoryReferenceOperand(instruction, operandIndex)) {
+      return getMemoryAddress(operandIndex);
+    }
+    return getVariableOperand(operandIndex) & 0xff;
+  }
+
+  /**
+   * copies C bytes from the address of the second operand to the address of the first, the blocks may overlap
+   */
+  void processMovs() {
+    int count = blockCount();
+    int destination = getBlockAddress(0);
+    int source = getBlockAddress(1);
+    if (isStackBlock(destination, count) && isStackBlock(source, count)) {
+      System.arraycopy(stack, source, stack, destination, count);
+      return;
+    }
+    try {
+      byte[] values = new byte[count];
+      for (int i = 0; i < count; i++) {
+        values[i] = readMemory(source + i);
+      }
+      for (int i = 0; i < count; i++) {
+        writeMemory(destination + i, values[i]);
+      }
+    } catch (ArrayIndexOutOfBoundsException e) {
+      faultCode = FaultCode.FAULT_OUT_OF_BOUNDS;
+      fault = true;
+    }
+  }
+
+  /**
+   * writes the second operand to C bytes from the address of the first
+   */
+  void processFill() {
+    int count = blockCount();
+    int destination = getBlockAddress(0);
+    byte value = getVariableOperand(1);
+    if (isStackBlock(destination, count)) {
+      Arrays.fill(stack, destination, destination + count, value);
+      return;
+    }
+    try {
+      for (int i = 0; i < count; i++) {
+        writeMemory(destination + i, value);
+      }
+    } catch (ArrayIndexOutOfBoundsException e) {
+      faultCode = FaultCode.FAULT_OUT_OF_BOUNDS;
+      fault = true;
+    }
+  }
+
+  /**
+   * compares C bytes at the addresses of both operands, Z is set if they are equal and C is set to the index of the first difference
+   */
+  void processCmps() {
+    int count = blockCount();
+    int first = getBlockAddress(0);
+    int second = getBlockAddress(1);
+    try {
+      int index = 0;
+      while (index < count && readMemory(first + index) == readMemory(second + index)) {
+        index++;
+      }
+      registers[Register.C.ordinal()] = (byte) index;
+      zero = index == count;
+    } catch (ArrayIndexOutOfBoundsException e) {
+      faultCode = FaultCode.FAULT_OUT_OF_BOUNDS;
+      fault = true;
+    }
+  }
+
+  /**
+   * searches C bytes from the address of the first operand for the second, Z is set if it was found and C is set to its index
+   */
+  void processScas() {
+    int count = blockCount();
+    int address = getBlockAddress(0);
+    byte value = getVariableOperand(1);
+    try {
+      int index = 0;
+      while (index < count && readMemory(address + index) != value) {
+        index++;
+      }
+      registers[Register.C.ordinal()] = (byte) index;
+      zero = index < count;
+    } catch (ArrayIndexOutOfBoundsException e) {
+      faultCode = FaultCode.FAULT_OUT_OF_BOUNDS;
+      fault = true;
+    }
+  }
+
+  /**
+   * adds rising edges of an input port to the count read by EDG
+   */
+  public void addEdges(int port, int count) {
+    edgeCounts[port] = (byte) Math.min(255, (edgeCounts[port] & 0xff) + count);
+  }
+
+  /**
+   * records an edge on an input port, it raises an interrupt if the edge is enabled in the IE register and the port has a handler
+   */
+  public void interrupt(int port, boolean rising) {
+    if (ByteUtil.getBit(registers[Register.IE.ordinal()], rising ? port : port + 4) && vectors[port] >= 0) {
+      pendingInterrupts |= 1 << port;
+    }
+  }
+
+  /**
+   * Enters the handler of the lowest pending interrupt unless a handler is already running, in which case the interrupt stays pending
+   * until IRET. The return address and the flags are pushed on the stack, a waiting processor wakes up.
+   */
+  public void dispatchInterrupt() {
+    if (pendingInterrupts == 0 || interrupted || fault) {
+      return;
+    }
+    int port = Integer.numberOfTrailingZeros(pendingInterrupts);
+    pendingInterrupts &= ~(1 << port);
+    if (vectors[port] < 0) {
+      dispatchInterrupt();
+      return;
+    }
+    if (vectors[port] >= labels.size()) {
+      faultCode = FaultCode.FAULT_OUT_OF_BOUNDS;
+      fault = true;
+      return;
+    }
+    if (sp >= stackLimit() - 2) {
+      faultCode = FaultCode.FAULT_STACK_OVERFLOW;
+      fault = true;
+      return;
+    }
+    byte flags = 0;
+    flags = ByteUtil.setBit(flags, zero, 0);
+    flags = ByteUtil.setBit(flags, carry, 1);
+    flags = ByteUtil.setBit(flags, overflow, 2);
+    stack[sp++] = ByteUtil.getByte(ip, 0);
+    stack[sp++] = ByteUtil.getByte(ip, 1);
+    stack[sp++] = flags;
+    ip = labels.get(vectors[port]).address;
+    interrupted = true;
+    wait = false;
+    sleeping = false;
+  }
+
+  /**
+   * true while any edge interrupt is enabled, WFE and SLP then only end early for an interrupt
+   */
+  public boolean isInterruptDriven() {
+    return registers[Register.IE.ordinal()] != 0;
+  }
+
+  private static byte[] newVectors() {
+    byte[] vectors = new byte[4];
+    Arrays.fill(vectors, (byte) -1);
+    return vectors;
+  }
+
   void processInc() {
     int a = getVariableOperand(0);
     int z = a + 1;
@@ -668,17 +1371,62 @@ public class Processor implements IProcessor {
   }
 
   byte getVariableOperand(int operandIndex) {
+    if (isPointerOperand(instruction, operandIndex)) {
+      try {
+        return readMemory(getMemoryAddress(operandIndex));
+      } catch (ArrayIndexOutOfBoundsException e) {
+        faultCode = FaultCode.FAULT_OUT_OF_BOUNDS;
+        fault = true;
+        return 0;
+      }
+    }
+
     if (isLabelOperand(instruction, operandIndex)) {
       return getProgramValueFromLabelOperand(operandIndex);
     }
 
     byte value = getVariableOperandNoReference(operandIndex);
     if (isMemoryReferenceOperand(instruction, operandIndex)) {
-      value = stack[value];
+      value = readMemory(value);
     }
     return value;
   }
 
+  /**
+   * the address of a memory reference, a 16 bit pointer takes its high byte from the first register of the pair and its low byte from the
+   * second
+   */
+  private int getMemoryAddress(int operandIndex) {
+    if (isPointerOperand(instruction, operandIndex)) {
+      int high = instruction[operandIndex + 1];
+      return ((registers[high] & 0xff) << 8 | (registers[high + 1] & 0xff)) + getMemoryOffset(operandIndex);
+    }
+    return getVariableOperandNoReference(operandIndex) + getMemoryOffset(operandIndex);
+  }
+
+  /**
+   * addresses above the stack map to the shared memory bus, when one is attached, and the addresses above the bus to the expanded memory
+   */
+  private byte readMemory(int address) {
+    if (bus != null && address >= MEMORY_SIZE && address < EXPANDED_MEMORY_START) {
+      return bus.read(address - MEMORY_SIZE);
+    }
+    if (address >= EXPANDED_MEMORY_START && address < memorySize) {
+      return memory.read(address);
+    }
+    return stack[address];
+  }
+
+  private void writeMemory(int address, byte value) {
+    if (bus != null && address >= MEMORY_SIZE && address < EXPANDED_MEMORY_START) {
+      bus.write(address - MEMORY_SIZE, value);
+    } else if (address >= EXPANDED_MEMORY_START && address < memorySize) {
+      memory.write(address, value);
+    } else {
+      stack[address] = value;
+    }
+  }
+
   private byte getProgramValueFromLabelOperand(int operandIndex) {
     byte value = instruction[operandIndex + 1];
     short address = labels.get(value).address;
@@ -721,6 +1469,14 @@ public class Processor implements IProcessor {
     return !ByteUtil.getBit(instruction[3], offset) && !ByteUtil.getBit(instruction[3], offset + 1);
   }
 
+  /**
+   * a register pair holding a 16 bit address, only valid as a memory reference
+   */
+  public static boolean isPointerOperand(byte[] instruction, int operandIndex) {
+    int offset = operandIndex * 4;
+    return ByteUtil.getBit(instruction[3], offset) && ByteUtil.getBit(instruction[3], offset + 1);
+  }
+
   public static boolean isLabelOperand(byte[] instruction, int operandIndex) {
     int offset = operandIndex * 4;
     return !ByteUtil.getBit(instruction[3], offset) && ByteUtil.getBit(instruction[3], offset + 1);
@@ -730,6 +1486,97 @@ public class Processor implements IProcessor {
     return fault;
   }
 
+  /**
+   * true if the next call to {@link #tick()} will execute an instruction
+   */
+  public boolean isRunnable() {
+    return !fault && (!wait || step || !otherCoresWait());
+  }
+
+  private boolean otherCoresWait() {
+    for (int core = 1; core < coreCount; core++) {
+      if ((startedCores & (1 << core)) != 0 && !cores[core].wait) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Sets how many cores the processor may run, from 1 to {@link #MAX_CORES}. Core 0 starts with the program, the others are started by
+   * FORK and run until the processor is reset. Cores beyond a lowered count are stopped.
+   */
+  public void setCoreCount(int coreCount) {
+    this.coreCount = Math.max(1, Math.min(MAX_CORES, coreCount));
+    startedCores &= (1 << this.coreCount) - 1;
+  }
+
+  public int getCoreCount() {
+    return coreCount;
+  }
+
+  /**
+   * Sets the size of the address space in bytes, up to {@link PagedMemory#SIZE}. Addresses from 128 up to the size are expanded memory,
+   * its pages are only allocated once written. The default of 64 bytes leaves the processor with its stack only.
+   */
+  public void setMemorySize(int memorySize) {
+    this.memorySize = Math.max(MEMORY_SIZE, Math.min(PagedMemory.SIZE, memorySize));
+  }
+
+  public int getMemorySize() {
+    return memorySize;
+  }
+
+  public PagedMemory getMemory() {
+    return memory;
+  }
+
+  /**
+   * true once FORK started a second core, the cores then have to execute one after the other through {@link #tick()}
+   */
+  public boolean isMultiCore() {
+    return startedCores != 1;
+  }
+
+  /**
+   * address of the instruction the next tick will fetch
+   */
+  public int getFetchAddress() {
+    return ip < 0 ? 0 : ip;
+  }
+
+  /**
+   * the interned image of the loaded program, shared with every other processor running the same code
+   */
+  public ProgramImage getImage() {
+    if (image == null) {
+      image = ProgramImage.of(program, labels);
+    }
+    return image;
+  }
+
+  /**
+   * values received by the given input port in FIFO mode, filled by the world side while the processor is not executing
+   */
+  public ByteRing getInputFifo(int port) {
+    return inputFifos[port];
+  }
+
+  /**
+   * values sent by the given output port in FIFO mode, drained by the world side while the processor is not executing
+   */
+  public ByteRing getOutputFifo(int port) {
+    return outputFifos[port];
+  }
+
+  public void setBus(SharedMemory.Attachment bus) {
+    this.bus = bus;
+  }
+
+  public SharedMemory.Attachment getBus() {
+    return bus;
+  }
+
   @Override
   public byte[] getRegisters() {
     return registers;
@@ -755,12 +1602,31 @@ public class Processor implements IProcessor {
     return carry;
   }
 
+  /**
+   * true while every started core waits
+   */
   public boolean isWait() {
-    return wait;
+    return wait && otherCoresWait();
   }
 
   public void setWait(boolean wait) {
-    this.wait = wait;
+    if (wait) {
+      this.wait = true;
+      if (cores != null) {
+        for (Core core : cores) {
+          core.wait = true;
+        }
+      }
+    } else {
+      this.wait = false;
+      sleeping = false;
+      if (cores != null) {
+        for (Core core : cores) {
+          core.wait = false;
+          core.sleeping = false;
+        }
+      }
+    }
   }
 
   public List<Label> getLabels() {
@@ -778,4 +1644,90 @@ public class Processor implements IProcessor {
   public byte getFaultCode() {
     return faultCode;
   }
+
+  /**
+   * the parked context of a core while another one is executing
+   */
+  private static class Core {
+
+    private final byte[] registers = new byte[CORE_REGISTERS];
+    private short ip;
+    private byte sp;
+    private boolean zero;
+    private boolean overflow;
+    private boolean carry;
+    private boolean wait;
+    private boolean sleeping;
+    private long wakeTime;
+    private int stall;
+
+    void start(short ip, byte sp) {
+      Arrays.fill(registers, (byte) 0);
+      this.ip = ip;
+      this.sp = sp;
+      zero = false;
+      overflow = false;
+      carry = false;
+      wait = false;
+      sleeping = false;
+      stall = 0;
+    }
+
+    void save(Processor processor) {
+      System.arraycopy(processor.registers, 0, registers, 0, CORE_REGISTERS);
+      ip = processor.ip;
+      sp = processor.sp;
+      zero = processor.zero;
+      overflow = processor.overflow;
+      carry = processor.carry;
+      wait = processor.wait;
+      sleeping = processor.sleeping;
+      wakeTime = processor.wakeTime;
+      stall = processor.stall;
+    }
+
+    void load(Processor processor) {
+      System.arraycopy(registers, 0, processor.registers, 0, CORE_REGISTERS);
+      processor.ip = ip;
+      processor.sp = sp;
+      processor.zero = zero;
+      processor.overflow = overflow;
+      processor.carry = carry;
+      processor.wait = wait;
+      processor.sleeping = sleeping;
+      processor.wakeTime = wakeTime;
+      processor.stall = stall;
+    }
+
+    void write(byte[] state, int offset, byte sleepRemaining) {
+      System.arraycopy(registers, 0, state, offset, CORE_REGISTERS);
+      state[offset + CORE_REGISTERS] = ByteUtil.getByte(ip, 0);
+      state[offset + CORE_REGISTERS + 1] = ByteUtil.getByte(ip, 1);
+      state[offset + CORE_REGISTERS + 2] = sp;
+      byte flags = 0;
+      flags = ByteUtil.setBit(flags, zero, 0);
+      flags = ByteUtil.setBit(flags, carry, 1);
+      flags = ByteUtil.setBit(flags, overflow, 2);
+      flags = ByteUtil.setBit(flags, wait, 3);
+      flags = ByteUtil.setBit(flags, sleeping, 4);
+      state[offset + CORE_REGISTERS + 3] = flags;
+      state[offset + CORE_REGISTERS + 4] = sleepRemaining;
+      state[offset + CORE_REGISTERS + 5] = (byte) stall;
+    }
+
+    void read(byte[] state, int offset) {
+      System.arraycopy(state, offset, registers, 0, CORE_REGISTERS);
+      ip = ByteUtil.setByte(ip, state[offset + CORE_REGISTERS], 0);
+      ip = ByteUtil.setByte(ip, state[offset + CORE_REGISTERS + 1], 1);
+      sp = state[offset + CORE_REGISTERS + 2];
+      byte flags = state[offset + CORE_REGISTERS + 3];
+      zero = ByteUtil.getBit(flags, 0);
+      carry = ByteUtil.getBit(flags, 1);
+      overflow = ByteUtil.getBit(flags, 2);
+      wait = ByteUtil.getBit(flags, 3);
+      sleeping = ByteUtil.getBit(flags, 4);
+      wakeTime = state[offset + CORE_REGISTERS + 4] & 0xff;
+      stall = state[offset + CORE_REGISTERS + 5] & 0xff;
+    }
+  }
 }
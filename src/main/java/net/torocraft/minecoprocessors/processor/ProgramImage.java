@@ -0,0 +1,95 @@
+package net.torocraft.minecoprocessors.processor;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import net.torocraft.minecoprocessors.util.Label;
+
+/**
+ * Immutable snapshot of a compiled program and its label addresses, with every opcode decoded up front.
+ *
+ * Images are interned, so processors that loaded the same code hold the same instance and can be grouped by reference.
+ */
+public final class ProgramImage {
+
+  private static final InstructionCode[] INSTRUCTION_CODES = InstructionCode.values();
+  private static final Map<ProgramImage, WeakReference<ProgramImage>> INTERNED = new WeakHashMap<>();
+
+  private final byte[][] instructions;
+  private final InstructionCode[] opcodes;
+  private final short[] labelAddresses;
+  private final int hash;
+
+  private ProgramImage(List<byte[]> program, List<Label> labels) {
+    instructions = new byte[program.size()][];
+    opcodes = new InstructionCode[program.size()];
+    for (int i = 0; i < instructions.length; i++) {
+      instructions[i] = program.get(i).clone();
+      opcodes[i] = decode(instructions[i]);
+    }
+
+    labelAddresses = new short[labels.size()];
+    for (int i = 0; i < labelAddresses.length; i++) {
+      labelAddresses[i] = labels.get(i).address;
+    }
+
+    hash = 31 * Arrays.deepHashCode(instructions) + Arrays.hashCode(labelAddresses);
+  }
+
+  public static ProgramImage of(List<byte[]> program, List<Label> labels) {
+    ProgramImage image = new ProgramImage(program, labels);
+    synchronized (INTERNED) {
+      WeakReference<ProgramImage> ref = INTERNED.get(image);
+      ProgramImage interned = ref == null ? null : ref.get();
+      if (interned != null) {
+        return interned;
+      }
+      INTERNED.put(image, new WeakReference<>(image));
+      return image;
+    }
+  }
+
+  private static InstructionCode decode(byte[] instruction) {
+    if (instruction.length == 0 || instruction[0] < 0 || instruction[0] >= INSTRUCTION_CODES.length) {
+      return null;
+    }
+    return INSTRUCTION_CODES[instruction[0]];
+  }
+
+  public int size() {
+    return instructions.length;
+  }
+
+  /**
+   * the instruction at the given address, which must not be modified
+   */
+  byte[] getInstruction(int address) {
+    return instructions[address];
+  }
+
+  /**
+   * the decoded opcode at the given address or null if the instruction does not decode
+   */
+  InstructionCode getOpcode(int address) {
+    return opcodes[address];
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ProgramImage)) {
+      return false;
+    }
+    ProgramImage other = (ProgramImage) o;
+    return hash == other.hash && Arrays.equals(labelAddresses, other.labelAddresses) && Arrays.deepEquals(instructions, other.instructions);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+}
@@ -52,5 +52,33 @@ public enum Register {
    *
    * <ul> <li><b>bit 0:</b> front port</li> <li><b>bit 1:</b> back port</li> <li><b>bit 2:</b> left port</li> <li><b>bit 3:</b> right port</li> </ul>
    */
-  ADC
+  ADC,
+  /**
+   * FIFO control and status for ports <BR>
+   *
+   * <b>bits 0-3</b>: FIFO mode per port, moving to an output port queues the value, moving from an input port takes the next queued value
+   * <BR>
+   *
+   * <b>bits 4-7</b>: status per port, set while an input FIFO has data or an output FIFO is full
+   */
+  FIFO,
+  /**
+   * wireless mode for ports, an output port in wireless mode sends on the channel in {@link #CHAN} instead of powering redstone, an input
+   * port receives from it <BR>
+   *
+   * <ul> <li><b>bit 0:</b> front port</li> <li><b>bit 1:</b> back port</li> <li><b>bit 2:</b> left port</li> <li><b>bit 3:</b> right port</li> </ul>
+   */
+  WL,
+  /**
+   * the wireless channel of the ports in {@link #WL} mode, 0 turns them off
+   */
+  CHAN,
+  /**
+   * interrupt enable for ports, the handler of a port is set with VEC and returns with IRET <BR>
+   *
+   * <b>bits 0-3</b>: interrupt on a rising edge (zero to non zero) of the front, back, left and right port <BR>
+   *
+   * <b>bits 4-7</b>: interrupt on a falling edge (non zero to zero) of the front, back, left and right port
+   */
+  IE
 }
@@ -0,0 +1,77 @@
+package net.torocraft.minecoprocessors.processor;
+
+import java.util.Arrays;
+
+/**
+ * Memory shared by the processors attached to a bus block.
+ *
+ * Every processor accesses the memory through its own {@link Attachment}. Reads return the memory as it was committed, except for
+ * addresses the processor wrote itself since then. Writes are collected per attachment and applied together by {@link #commit()}; when
+ * several attachments wrote the same address the one with the lowest slot wins. The result therefore does not depend on the order or the
+ * threads the processors executed on.
+ */
+public class SharedMemory {
+
+  public static final int SIZE = 64;
+
+  private final byte[] data = new byte[SIZE];
+  private final Attachment[] attachments;
+
+  public SharedMemory(int slots) {
+    attachments = new Attachment[slots];
+    for (int i = 0; i < slots; i++) {
+      attachments[i] = new Attachment();
+    }
+  }
+
+  public Attachment getAttachment(int slot) {
+    return attachments[slot];
+  }
+
+  /**
+   * applies the writes of all attachments, returns true if the memory changed
+   */
+  public boolean commit() {
+    boolean changed = false;
+    long written = 0;
+    for (Attachment attachment : attachments) {
+      long mask = attachment.mask & ~written;
+      written |= attachment.mask;
+      attachment.mask = 0;
+      while (mask != 0) {
+        int address = Long.numberOfTrailingZeros(mask);
+        mask &= mask - 1;
+        changed |= data[address] != attachment.pending[address];
+        data[address] = attachment.pending[address];
+      }
+    }
+    return changed;
+  }
+
+  public byte[] getData() {
+    return Arrays.copyOf(data, SIZE);
+  }
+
+  public void setData(byte[] values) {
+    Arrays.fill(data, (byte) 0);
+    System.arraycopy(values, 0, data, 0, Math.min(values.length, SIZE));
+  }
+
+  public class Attachment {
+
+    private final byte[] pending = new byte[SIZE];
+    private long mask;
+
+    public byte read(int address) {
+      if ((mask & (1L << address)) != 0) {
+        return pending[address];
+      }
+      return data[address];
+    }
+
+    public void write(int address, byte value) {
+      pending[address] = value;
+      mask |= 1L << address;
+    }
+  }
+}
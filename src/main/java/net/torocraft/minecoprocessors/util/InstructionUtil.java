@@ -14,6 +14,8 @@ public class InstructionUtil {
   public static final String ERROR_DOUBLE_REFERENCE = "only one memory reference allowed";
   public static final String ERROR_NON_REFERENCE_OFFSET = "offsets can only be used with labels and references";
   public static final String ERROR_LABEL_IN_FIRST_OPERAND = "labels can not be the first of two operands";
+  public static final String ERROR_NON_REFERENCE_POINTER = "register pairs can only be used as references";
+  public static final String ERROR_DOUBLE_OFFSET = "only one memory offset allowed";
 
   public static List<String> compileFile(List<byte[]> instructions, List<Label> labels) {
     List<String> file = new ArrayList<>();
@@ -58,12 +60,19 @@ public class InstructionUtil {
       case ROL:
       case SAL:
       case SAR:
+      case EDG:
+      case XCHG:
+      case MOVS:
+      case FILL:
+      case CMPS:
+      case SCAS:
         line.append(" ");
         line.append(compileVariableOperand(instruction, 0, labels));
         line.append(", ");
         line.append(compileVariableOperand(instruction, 1, labels));
         break;
       case DJNZ:
+      case VEC:
         line.append(" ");
         line.append(lower(Register.values()[instruction[1]]));
         line.append(", ");
@@ -81,6 +90,7 @@ public class InstructionUtil {
       case JNC:
       case LOOP:
       case CALL:
+      case FORK:
         label = labels.get(instruction[1]);
         if (label != null) {
           line.append(" ");
@@ -94,6 +104,7 @@ public class InstructionUtil {
       case PUSH:
       case INC:
       case DEC:
+      case SLP:
         line.append(" ");
         if (ByteUtil.getBit(instruction[3], 0)) {
           line.append(Integer.toString(instruction[1], 10));
@@ -101,6 +112,10 @@ public class InstructionUtil {
           line.append(lower(Register.values()[instruction[1]]));
         }
         break;
+      case TAS:
+        line.append(" ");
+        line.append(compileVariableOperand(instruction, 0, labels));
+        break;
       case POPA:
       case PUSHA:
       case RET:
@@ -111,6 +126,7 @@ public class InstructionUtil {
       case CLC:
       case SEZ:
       case SEC:
+      case IRET:
         break;
       default:
         throw new RuntimeException("Command enum had unexpected value");
@@ -149,6 +165,9 @@ public class InstructionUtil {
     } else if (Processor.isRegisterOperand(instruction, operandIndex)) {
       operand = lower(Register.values()[value]);
 
+    } else if (Processor.isPointerOperand(instruction, operandIndex)) {
+      operand = lower(Register.values()[value]) + ":" + lower(Register.values()[value + 1]);
+
     } else if (Processor.isLabelOperand(instruction, operandIndex)) {
       if (value < labels.size()) {
         Label label = labels.get(value);
@@ -289,13 +308,23 @@ public class InstructionUtil {
       case SHR:
       case SUB:
       case DJNZ:
+      case VEC:
       case ROR:
       case ROL:
       case SAL:
       case SAR:
+      case EDG:
+      case XCHG:
         instruction = parseDoubleOperands(line, labels);
         break;
 
+      case MOVS:
+      case FILL:
+      case CMPS:
+      case SCAS:
+        instruction = parseBlockOperands(line, labels);
+        break;
+
       case JMP:
       case JNZ:
       case JE:
@@ -305,6 +334,7 @@ public class InstructionUtil {
       case JNC:
       case LOOP:
       case CALL:
+      case FORK:
         instruction = parseLabelOperand(line, labels);
         break;
 
@@ -315,9 +345,14 @@ public class InstructionUtil {
       case PUSH:
       case INC:
       case DEC:
+      case SLP:
         instruction = parseSingleOperand(line, labels);
         break;
 
+      case TAS:
+        instruction = parseReferenceOperand(line, labels);
+        break;
+
       case RET:
       case NOP:
       case WFE:
@@ -328,6 +363,7 @@ public class InstructionUtil {
       case SEC:
       case POPA:
       case PUSHA:
+      case IRET:
         instruction = new byte[1];
         break;
 
@@ -349,6 +385,19 @@ public class InstructionUtil {
     return instruction;
   }
 
+  /**
+   * a single operand that may also be a memory reference
+   */
+  private static byte[] parseReferenceOperand(String line, List<Label> labels) throws ParseException {
+    byte[] instruction = new byte[4];
+    List<String> l = regex("^\\s*[A-Z]+\\s+(\\S.*?)\\s*$", line, Pattern.CASE_INSENSITIVE);
+    if (l.size() != 1) {
+      throw new ParseException(line, "incorrect operand format");
+    }
+    instruction = parseVariableOperand(line, instruction, l.get(0), 0, labels);
+    return instruction;
+  }
+
   static List<String> splitDoubleOperandString(String line) {
     return regex("^\\s*[A-Z]+\\s+([^,]+)\\s*,\\s*(.+?)\\s*$", line, Pattern.CASE_INSENSITIVE);
   }
@@ -369,6 +418,26 @@ public class InstructionUtil {
     return instruction;
   }
 
+  /**
+   * the operands of a block instruction, unlike other instructions both of them may be memory references as long as only one has an offset
+   */
+  private static byte[] parseBlockOperands(String line, List<Label> labels) throws ParseException {
+    byte[] instruction = new byte[4];
+    List<String> l = splitDoubleOperandString(line);
+    if (l.size() != 2) {
+      throw new ParseException(line, "incorrect operand format");
+    }
+    instruction = parseVariableOperand(line, instruction, l.get(0), 0, labels);
+    boolean firstOffset = Processor.isOffsetOperand(instruction, 0);
+    instruction = parseVariableOperand(line, instruction, l.get(1), 1, labels);
+
+    if (firstOffset && Processor.isOffsetOperand(instruction, 1)) {
+      throw new ParseException(line, ERROR_DOUBLE_OFFSET);
+    }
+
+    return instruction;
+  }
+
   static byte[] parseVariableOperand(String line, byte[] instruction, String operand,
       int operandIndex, List<Label> labels) throws ParseException {
 
@@ -386,7 +455,15 @@ public class InstructionUtil {
       operand = stripMemoryOffset(operand);
     }
 
-    if (isLiteral(operand)) {
+    if (isPointer(operand)) {
+      if (!isMemoryReference) {
+        throw new ParseException(line, ERROR_NON_REFERENCE_POINTER);
+      }
+      instruction[operandIndex + 1] = (byte) parseRegister(line, operand.substring(0, operand.indexOf(':'))).ordinal();
+      instruction[3] = ByteUtil.setBit(instruction[3], true, operandIndex * 4);
+      instruction[3] = ByteUtil.setBit(instruction[3], true, (operandIndex * 4) + 1);
+
+    } else if (isLiteral(operand)) {
       instruction[operandIndex + 1] = parseLiteral(line, operand);
       instruction[3] = ByteUtil.setBit(instruction[3], true, operandIndex * 4);
 
@@ -439,6 +516,13 @@ public class InstructionUtil {
     return operand.replaceAll("([^+-^\\s]+)\\s*[+-]\\s*[0-9]{1,3}(]?)", "$1$2");
   }
 
+  /**
+   * the register pairs a:b and c:d of a 16 bit pointer, high byte first
+   */
+  static boolean isPointer(String operand) {
+    return operand.trim().matches("(?i)(a\\s*:\\s*b|c\\s*:\\s*d)");
+  }
+
   static boolean isMemoryReference(String operand) {
     return operand.matches("\\[[^]]+]");
   }
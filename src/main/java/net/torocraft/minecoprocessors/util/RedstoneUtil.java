@@ -6,14 +6,30 @@ import net.minecraft.util.EnumFacing;
 
 public class RedstoneUtil {
 
+  /**
+   * lookup tables indexed by the horizontal index of the block facing, then by port index or by the horizontal index of the side
+   */
+  private static final EnumFacing[][] PORT_TO_FACING = new EnumFacing[4][4];
+  private static final int[][] FACING_TO_PORT = new int[4][4];
+
+  static {
+    for (int f = 0; f < 4; f++) {
+      EnumFacing facing = EnumFacing.getHorizontal(f);
+      int rotation = getRotation(facing);
+      for (int i = 0; i < 4; i++) {
+        PORT_TO_FACING[f][i] = rotateFacing(EnumFacing.getFront(i + 2), rotation);
+        EnumFacing side = EnumFacing.getHorizontal(i);
+        FACING_TO_PORT[f][i] = rotateFacing(side, -rotation).getIndex() - 2;
+      }
+    }
+  }
+
   public static EnumFacing convertPortIndexToFacing(EnumFacing facing, int portIndex) {
-    int rotation = getRotation(facing);
-    return rotateFacing(EnumFacing.getFront(portIndex + 2), rotation);
+    return PORT_TO_FACING[facing.getHorizontalIndex()][portIndex];
   }
 
   public static int convertFacingToPortIndex(EnumFacing facing, EnumFacing side) {
-    int rotation = getRotation(facing);
-    return rotateFacing(side, -rotation).getIndex() - 2;
+    return FACING_TO_PORT[facing.getHorizontalIndex()][side.getHorizontalIndex()];
   }
 
   private static EnumFacing rotateFacing(EnumFacing facing, int rotation) {
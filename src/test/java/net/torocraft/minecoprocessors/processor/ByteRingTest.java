@@ -0,0 +1,44 @@
+package net.torocraft.minecoprocessors.processor;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ByteRingTest {
+
+  @Test
+  public void testCapacityIsRoundedUp() {
+    Assert.assertEquals(16, new ByteRing(16).capacity());
+    Assert.assertEquals(16, new ByteRing(9).capacity());
+    Assert.assertEquals(1, new ByteRing(1).capacity());
+  }
+
+  @Test
+  public void testOfferAndPoll() {
+    ByteRing ring = new ByteRing(4);
+    Assert.assertTrue(ring.isEmpty());
+    Assert.assertEquals(-1, ring.poll());
+
+    for (int i = 0; i < 4; i++) {
+      Assert.assertTrue(ring.offer((byte) (0xfc + i)));
+    }
+    Assert.assertTrue(ring.isFull());
+    Assert.assertFalse(ring.offer((byte) 1));
+
+    Assert.assertEquals(0xfc, ring.poll());
+    Assert.assertTrue(ring.offer((byte) 1));
+    Assert.assertArrayEquals(new byte[]{(byte) 0xfd, (byte) 0xfe, (byte) 0xff, 1}, ring.toArray());
+
+    ring.clear();
+    Assert.assertTrue(ring.isEmpty());
+    Assert.assertEquals(0, ring.size());
+  }
+
+  @Test
+  public void testWrapsAround() {
+    ByteRing ring = new ByteRing(2);
+    for (int i = 0; i < 100; i++) {
+      ring.offer((byte) i);
+      Assert.assertEquals(i, ring.poll());
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package net.torocraft.minecoprocessors.processor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LockstepExecutorTest {
+
+  private static final List<String> PROGRAM = Arrays.asList(
+      "mov ports, 0010b",
+      "start:",
+      "cmp pb, 0",
+      "jz off",
+      "mov a, pb",
+      "add a, c",
+      "mov [c], a",
+      "djnz c, start",
+      "hlt",
+      "off:",
+      "inc d",
+      "mov c, d",
+      "jmp start"
+  );
+
+  @Test
+  public void testSameProgramSharesImage() {
+    Processor a = new Processor();
+    Processor b = new Processor();
+    Processor c = new Processor();
+    a.load(PROGRAM);
+    b.load(new ArrayList<>(PROGRAM));
+    c.load(Arrays.asList("nop", "jmp start", "start:"));
+    Assert.assertSame(a.getImage(), b.getImage());
+    Assert.assertNotSame(a.getImage(), c.getImage());
+  }
+
+  @Test
+  public void testMatchesSingleProcessorExecution() {
+    List<Processor> lanes = new ArrayList<>();
+    List<Processor> reference = new ArrayList<>();
+
+    for (int i = 0; i < 8; i++) {
+      lanes.add(setup(i));
+      reference.add(setup(i));
+    }
+    // a lane with a different program runs in its own group
+    Processor other = new Processor();
+    other.load(Arrays.asList("start:", "inc a", "jmp start"));
+    lanes.add(other);
+    other = new Processor();
+    other.load(Arrays.asList("start:", "inc a", "jmp start"));
+    reference.add(other);
+
+    LockstepExecutor executor = new LockstepExecutor();
+    for (int tick = 0; tick < 200; tick++) {
+      executor.step(lanes);
+      for (Processor processor : reference) {
+        processor.tick();
+      }
+    }
+
+    for (int i = 0; i < lanes.size(); i++) {
+      Processor lane = lanes.get(i);
+      Processor expected = reference.get(i);
+      Assert.assertEquals(expected.packFlags(), lane.packFlags());
+      Assert.assertEquals(expected.getFaultCode(), lane.getFaultCode());
+      Assert.assertArrayEquals(expected.getRegisters(), lane.getRegisters());
+      Assert.assertArrayEquals(expected.stack, lane.stack);
+    }
+  }
+
+  private static Processor setup(int input) {
+    Processor processor = new Processor();
+    processor.load(PROGRAM);
+    processor.registers[Register.PB.ordinal()] = (byte) (input % 3);
+    processor.registers[Register.C.ordinal()] = (byte) input;
+    return processor;
+  }
+}
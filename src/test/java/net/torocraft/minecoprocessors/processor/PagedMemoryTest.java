@@ -0,0 +1,42 @@
+package net.torocraft.minecoprocessors.processor;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PagedMemoryTest {
+
+  @Test
+  public void testPagesAreAllocatedOnWrite() {
+    PagedMemory memory = new PagedMemory();
+    Assert.assertEquals(0, memory.read(0xffff));
+
+    memory.write(0x1234, (byte) 0);
+    Assert.assertEquals(0, memory.getAllocatedPages());
+
+    memory.write(0x1234, (byte) 7);
+    memory.write(0x12ff, (byte) 8);
+    Assert.assertEquals(1, memory.getAllocatedPages());
+    Assert.assertEquals(7, memory.read(0x1234));
+    Assert.assertEquals(8, memory.read(0x12ff));
+    Assert.assertEquals(0, memory.read(0x1300));
+  }
+
+  @Test
+  public void testOnlyNonZeroPagesAreCopied() {
+    PagedMemory memory = new PagedMemory();
+    memory.write(0x0100, (byte) 1);
+    memory.write(0x0200, (byte) 2);
+    memory.write(0x0200, (byte) 0);
+
+    byte[] page = memory.getPage(1);
+    Assert.assertEquals(PagedMemory.PAGE_SIZE, page.length);
+    Assert.assertEquals(1, page[0]);
+    Assert.assertNull(memory.getPage(2));
+    Assert.assertNull(memory.getPage(3));
+
+    PagedMemory copy = new PagedMemory();
+    copy.setPage(1, page);
+    Assert.assertEquals(1, copy.read(0x0100));
+    Assert.assertEquals(1, copy.getAllocatedPages());
+  }
+}
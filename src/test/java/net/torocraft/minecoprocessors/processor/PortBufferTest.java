@@ -0,0 +1,106 @@
+package net.torocraft.minecoprocessors.processor;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PortBufferTest {
+
+  @Test
+  public void testInputsAreStagedUntilLatched() {
+    Processor processor = new Processor();
+    processor.wait = true;
+    PortBuffer buffer = new PortBuffer();
+
+    buffer.stageInput(1, (byte) 0x0f);
+    buffer.requestWake();
+    Assert.assertEquals(0, processor.registers[Register.PB.ordinal()]);
+    Assert.assertTrue(processor.isWait());
+
+    buffer.latch(processor);
+    Assert.assertEquals(0x0f, processor.registers[Register.PB.ordinal()]);
+    Assert.assertFalse(processor.isWait());
+
+    processor.registers[Register.PB.ordinal()] = 0x03;
+    buffer.latch(processor);
+    Assert.assertEquals(0x03, processor.registers[Register.PB.ordinal()]);
+  }
+
+  @Test
+  public void testResetIsAppliedBeforeInputs() {
+    Processor processor = new Processor();
+    processor.registers[Register.A.ordinal()] = 0x12;
+    PortBuffer buffer = new PortBuffer();
+
+    buffer.requestReset();
+    buffer.stageInput(0, (byte) 0x01);
+    buffer.latch(processor);
+
+    Assert.assertEquals(0, processor.registers[Register.A.ordinal()]);
+    Assert.assertEquals(0x01, processor.registers[Register.PF.ordinal()]);
+  }
+
+  @Test
+  public void testOutputsAreVisibleOncePublished() {
+    Processor processor = new Processor();
+    PortBuffer buffer = new PortBuffer();
+
+    processor.registers[Register.PR.ordinal()] = 0x7f;
+    processor.registers[Register.PORTS.ordinal()] = 0b0111;
+    processor.registers[Register.ADC.ordinal()] = 0b1000;
+    Assert.assertEquals(0, buffer.getPort(3));
+
+    Assert.assertTrue(buffer.publish(processor));
+    Assert.assertEquals(0x7f, buffer.getPort(3));
+    Assert.assertEquals(0b0111, buffer.getPorts());
+    Assert.assertEquals(0b1000, buffer.getAdc());
+    Assert.assertFalse(buffer.publish(processor));
+  }
+
+  @Test
+  public void testEdgesAreCountedOncePerTick() {
+    Processor processor = new Processor();
+    processor.load(Arrays.asList("mov ports, 0001b", "edg a, pf", "edg b, pf"));
+    PortBuffer buffer = new PortBuffer();
+
+    buffer.stageInput(0, (byte) 5, 10);
+    buffer.stageInput(0, (byte) 0, 10);
+    buffer.stageInput(0, (byte) 7, 10);
+    buffer.stageInput(0, (byte) 0, 11);
+    buffer.stageInput(0, (byte) 3, 12);
+    buffer.latch(processor);
+
+    processor.run(3);
+    Assert.assertEquals(2, processor.registers[Register.A.ordinal()]);
+    Assert.assertEquals(0, processor.registers[Register.B.ordinal()]);
+    Assert.assertEquals(3, processor.registers[Register.PF.ordinal()]);
+  }
+
+  @Test
+  public void testLoadedLevelsAreNoEdge() {
+    Processor processor = new Processor();
+    processor.load(Arrays.asList("mov ports, 0001b", "edg a, pf"));
+    processor.registers[Register.PF.ordinal()] = 1;
+    PortBuffer buffer = new PortBuffer();
+    buffer.loadLevels(processor);
+
+    buffer.stageInput(0, (byte) 4, 10);
+    buffer.latch(processor);
+
+    processor.run(2);
+    Assert.assertEquals(0, processor.registers[Register.A.ordinal()]);
+    Assert.assertEquals(4, processor.registers[Register.PF.ordinal()]);
+  }
+
+  @Test
+  public void testWirelessChannelIsUnsigned() {
+    Processor processor = new Processor();
+    PortBuffer buffer = new PortBuffer();
+
+    processor.registers[Register.WL.ordinal()] = 0b0001;
+    processor.registers[Register.CHAN.ordinal()] = (byte) 200;
+    Assert.assertTrue(buffer.publish(processor));
+    Assert.assertEquals(0b0001, buffer.getWireless());
+    Assert.assertEquals(200, buffer.getChannel());
+  }
+}
@@ -203,6 +203,259 @@ public class ProcessorTest {
     Assert.assertTrue(processor.isFault());
   }
 
+  @Test
+  public void testRun() {
+    Processor processor = new Processor();
+    processor.load(Arrays.asList("inc a", "inc a", "inc a", "wfe", "inc a"));
+    Assert.assertEquals(2, processor.run(2));
+    Assert.assertEquals(2, processor.registers[Register.A.ordinal()]);
+    Assert.assertEquals(2, processor.run(8));
+    Assert.assertEquals(3, processor.registers[Register.A.ordinal()]);
+    Assert.assertTrue(processor.isWait());
+    Assert.assertEquals(0, processor.run(8));
+  }
+
+  @Test
+  public void testPortInterrupts() {
+    Processor processor = new Processor();
+    processor.load(Arrays.asList("mov ports, 0010b", "vec pb, handler", "mov ie, 0010b", "main: wfe", "jmp main", "handler: inc a", "iret"));
+    PortBuffer buffer = new PortBuffer();
+
+    processor.run(10);
+    Assert.assertTrue(processor.isWait());
+
+    buffer.stageInput(1, (byte) 5);
+    buffer.requestWake();
+    buffer.latch(processor);
+    Assert.assertFalse(processor.isWait());
+    processor.run(10);
+    Assert.assertEquals(1, processor.registers[Register.A.ordinal()]);
+    Assert.assertEquals(0, processor.sp);
+    Assert.assertTrue(processor.isWait());
+
+    buffer.stageInput(1, (byte) 6);
+    buffer.requestWake();
+    buffer.latch(processor);
+    Assert.assertTrue(processor.isWait());
+
+    buffer.stageInput(1, (byte) 0);
+    buffer.latch(processor);
+    buffer.stageInput(1, (byte) 1);
+    buffer.latch(processor);
+    processor.run(10);
+    Assert.assertEquals(2, processor.registers[Register.A.ordinal()]);
+    Assert.assertFalse(processor.isFault());
+
+    processor.load(Arrays.asList("vec pb, 5"));
+    processor.run(1);
+    Assert.assertEquals(FaultCode.FAULT_OUT_OF_BOUNDS, processor.getFaultCode());
+  }
+
+  @Test
+  public void testSleep() {
+    Processor processor = new Processor();
+    processor.load(Arrays.asList("mov b, 3", "slp b", "inc a", "slp 0", "inc a"));
+    PortBuffer buffer = new PortBuffer();
+
+    processor.setTime(100);
+    Assert.assertEquals(2, processor.run(10));
+    Assert.assertTrue(processor.isSleeping());
+    Assert.assertEquals(103, processor.getWakeTime());
+
+    buffer.stageInput(0, (byte) 1);
+    buffer.requestWake();
+    buffer.latch(processor);
+    Assert.assertFalse(processor.isRunnable());
+
+    buffer.requestAlarm(102);
+    buffer.latch(processor);
+    Assert.assertTrue(processor.isSleeping());
+
+    buffer.requestAlarm(103);
+    buffer.latch(processor);
+    Assert.assertFalse(processor.isSleeping());
+    processor.run(10);
+    Assert.assertEquals(2, processor.registers[Register.A.ordinal()]);
+  }
+
+  @Test
+  public void testCores() {
+    Processor processor = new Processor();
+    processor.setCoreCount(4);
+    processor.load(Arrays.asList("fork worker", "fork worker", "fork worker", "fork worker", "wfe", "worker:", "tas [60]", "jnz worker",
+        "mov a, [61]", "inc a", "mov [61], a", "mov [60], 0", "xchg b, [62]", "wfe"));
+
+    processor.run(100);
+    Assert.assertTrue(processor.isCarry());
+    Assert.assertTrue(processor.isWait());
+    Assert.assertTrue(processor.isMultiCore());
+    Assert.assertEquals(3, processor.stack[61]);
+    Assert.assertEquals(0, processor.stack[60]);
+
+    NBTTagCompound c = processor.writeToNBT();
+    processor.reset();
+    Assert.assertFalse(processor.isMultiCore());
+    processor.readFromNBT(c);
+    Assert.assertTrue(processor.isMultiCore());
+    Assert.assertTrue(processor.isWait());
+
+    processor.setCoreCount(1);
+    processor.load(Arrays.asList("fork worker", "worker: mov [0], 5", "xchg a, [0]", "hlt"));
+    processor.run(10);
+    Assert.assertTrue(processor.isCarry());
+    Assert.assertEquals(5, processor.registers[Register.A.ordinal()]);
+    Assert.assertEquals(0, processor.stack[0]);
+
+    processor.setCoreCount(2);
+    processor.load(Arrays.asList("fork worker", "wfe", "worker: mov a, 9", "loop: push a", "jmp loop"));
+    processor.run(200);
+    Assert.assertEquals(FaultCode.FAULT_STACK_OVERFLOW, processor.getFaultCode());
+    Assert.assertEquals(0, processor.stack[31]);
+    Assert.assertEquals(9, processor.stack[32]);
+    Assert.assertEquals(9, processor.stack[63]);
+
+    processor.load(Arrays.asList("fork worker", "wfe", "worker: pop a"));
+    processor.run(10);
+    Assert.assertEquals(FaultCode.FAULT_STACK_UNDERFLOW, processor.getFaultCode());
+
+    processor.setCoreCount(4);
+    processor.load(Arrays.asList("mov c, 17", "loop: push a", "djnz c, loop", "fork worker", "worker: wfe"));
+    processor.run(100);
+    Assert.assertEquals(FaultCode.FAULT_STACK_OVERFLOW, processor.getFaultCode());
+    Assert.assertFalse(processor.isMultiCore());
+  }
+
+  @Test
+  public void testExpandedMemory() {
+    Processor processor = new Processor();
+    processor.setMemorySize(PagedMemory.SIZE);
+    processor.load(Arrays.asList("mov a, 0x12", "mov b, 0x34", "mov [a:b], 7", "mov [a:b+1], 8", "mov c, [a:b+1]",
+        "mov c, 0xff", "mov d, 0xff", "mov [c:d], c", "hlt"));
+
+    processor.run(20);
+    Assert.assertEquals(FaultCode.FAULT_HLT_INSTRUCTION, processor.getFaultCode());
+    Assert.assertEquals(7, processor.getMemory().read(0x1234));
+    Assert.assertEquals(8, processor.getMemory().read(0x1235));
+    Assert.assertEquals((byte) 0xff, processor.getMemory().read(0xffff));
+    Assert.assertEquals(2, processor.getMemory().getAllocatedPages());
+
+    NBTTagCompound c = processor.writeToNBT();
+    processor.flush();
+    Assert.assertEquals(0, processor.getMemory().getAllocatedPages());
+    processor.readFromNBT(c);
+    Assert.assertEquals(8, processor.getMemory().read(0x1235));
+    Assert.assertEquals(2, processor.getMemory().getAllocatedPages());
+
+    processor.setMemorySize(0x1000);
+    processor.load(Arrays.asList("mov a, 0x12", "mov [a:b], 1"));
+    processor.run(2);
+    Assert.assertEquals(FaultCode.FAULT_OUT_OF_BOUNDS, processor.getFaultCode());
+  }
+
+  @Test
+  public void testBlockInstructions() {
+    Processor processor = new Processor();
+    processor.load(Arrays.asList("mov c, 10", "fill 0, 7", "mov [4], 3", "mov c, 10", "movs 20, 0", "mov c, 10", "cmps 0, 20",
+        "mov a, c", "mov c, 10", "scas 20, 3", "hlt"));
+
+    Assert.assertEquals(3, processor.run(3));
+    Assert.assertEquals(7, processor.stack[9]);
+    Assert.assertEquals(0, processor.stack[10]);
+
+    NBTTagCompound c = processor.writeToNBT();
+    Assert.assertEquals(1, c.getByte("stall"));
+    Processor restored = new Processor();
+    restored.readFromNBT(c);
+    restored.run(1);
+    Assert.assertEquals(7, restored.stack[4]);
+    restored.run(1);
+    Assert.assertEquals(3, restored.stack[4]);
+
+    processor.run(100);
+    Assert.assertEquals(FaultCode.FAULT_HLT_INSTRUCTION, processor.getFaultCode());
+    Assert.assertEquals(3, processor.stack[24]);
+    Assert.assertEquals(7, processor.stack[29]);
+    Assert.assertEquals(10, processor.registers[Register.A.ordinal()]);
+    Assert.assertEquals(4, processor.registers[Register.C.ordinal()]);
+    Assert.assertTrue(processor.isZero());
+
+    processor.load(Arrays.asList("mov c, 8", "movs 60, 0"));
+    processor.run(10);
+    Assert.assertEquals(FaultCode.FAULT_OUT_OF_BOUNDS, processor.getFaultCode());
+
+    processor.setMemorySize(PagedMemory.SIZE);
+    processor.load(Arrays.asList("mov c, 16", "fill 0, 7", "mov [3], 5", "mov b, 0xf8", "movs [a:b], 0", "cmps [a:b], 0", "mov d, c",
+        "scas [a:b], 5", "hlt"));
+    processor.run(100);
+    Assert.assertEquals(FaultCode.FAULT_HLT_INSTRUCTION, processor.getFaultCode());
+    Assert.assertEquals(7, processor.getMemory().read(0xff));
+    Assert.assertEquals(7, processor.getMemory().read(0x100));
+    Assert.assertEquals(7, processor.getMemory().read(0x107));
+    Assert.assertEquals(0, processor.getMemory().read(0x108));
+    Assert.assertEquals(5, processor.getMemory().read(0xfb));
+    Assert.assertEquals(16, processor.registers[Register.D.ordinal()]);
+    Assert.assertEquals(3, processor.registers[Register.C.ordinal()]);
+    Assert.assertTrue(processor.isZero());
+  }
+
+  @Test
+  public void testCoresSleepOnTheirOwn() {
+    Processor processor = new Processor();
+    processor.setCoreCount(3);
+    processor.load(Arrays.asList("fork sleeper", "fork waiter", "slp 10", "inc a", "wfe", "sleeper: slp 5", "mov [0], 1", "wfe",
+        "waiter: wfe", "mov [1], 1", "wfe"));
+    PortBuffer buffer = new PortBuffer();
+
+    processor.setTime(0);
+    processor.run(10);
+    Assert.assertTrue(processor.isWait());
+    Assert.assertEquals(5, processor.getWakeTime());
+
+    buffer.requestWake();
+    buffer.latch(processor);
+    processor.run(10);
+    Assert.assertEquals(1, processor.stack[1]);
+    Assert.assertEquals(0, processor.stack[0]);
+    Assert.assertEquals(0, processor.registers[Register.A.ordinal()]);
+
+    NBTTagCompound c = processor.writeToNBT();
+    processor.readFromNBT(c);
+    processor.setTime(1000);
+    Assert.assertEquals(1005, processor.getWakeTime());
+
+    buffer.requestAlarm(1005);
+    buffer.latch(processor);
+    processor.run(10);
+    Assert.assertEquals(1, processor.stack[0]);
+    Assert.assertEquals(0, processor.registers[Register.A.ordinal()]);
+    Assert.assertEquals(1010, processor.getWakeTime());
+
+    buffer.requestAlarm(1010);
+    buffer.latch(processor);
+    processor.run(10);
+    Assert.assertEquals(1, processor.registers[Register.A.ordinal()]);
+    Assert.assertFalse(processor.isSleeping());
+  }
+
+  @Test
+  public void testFifoPorts() {
+    Processor processor = new Processor();
+    processor.load(Arrays.asList("mov ports, 0010b", "mov fifo, 0011b", "mov pf, 1", "mov pf, 2", "mov a, pb", "mov b, pb", "mov c, fifo",
+        "mov d, pb", "hlt"));
+    processor.getInputFifo(1).offer((byte) 5);
+    processor.getInputFifo(1).offer((byte) 6);
+    processor.getInputFifo(1).offer((byte) 7);
+
+    processor.run(9);
+    Assert.assertArrayEquals(new byte[]{1, 2}, processor.getOutputFifo(0).toArray());
+    Assert.assertEquals(2, processor.registers[Register.PF.ordinal()]);
+    Assert.assertEquals(5, processor.registers[Register.A.ordinal()]);
+    Assert.assertEquals(6, processor.registers[Register.B.ordinal()]);
+    Assert.assertEquals(0x23, processor.registers[Register.C.ordinal()]);
+    Assert.assertEquals(7, processor.registers[Register.D.ordinal()]);
+    Assert.assertEquals(0x03, processor.registers[Register.FIFO.ordinal()]);
+  }
+
   @Test
   public void testProcessClz() {
     Processor processor = new Processor();
@@ -0,0 +1,65 @@
+package net.torocraft.minecoprocessors.processor;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SharedMemoryTest {
+
+  @Test
+  public void testWritesAreVisibleAfterCommit() {
+    SharedMemory memory = new SharedMemory(2);
+    SharedMemory.Attachment a = memory.getAttachment(0);
+    SharedMemory.Attachment b = memory.getAttachment(1);
+
+    a.write(3, (byte) 0x2a);
+    Assert.assertEquals(0x2a, a.read(3));
+    Assert.assertEquals(0, b.read(3));
+
+    Assert.assertTrue(memory.commit());
+    Assert.assertEquals(0x2a, b.read(3));
+    Assert.assertFalse(memory.commit());
+  }
+
+  @Test
+  public void testLowestSlotWins() {
+    SharedMemory memory = new SharedMemory(3);
+    memory.getAttachment(2).write(5, (byte) 2);
+    memory.getAttachment(1).write(5, (byte) 1);
+    memory.getAttachment(2).write(6, (byte) 2);
+    memory.commit();
+
+    Assert.assertEquals(1, memory.getAttachment(0).read(5));
+    Assert.assertEquals(2, memory.getAttachment(0).read(6));
+  }
+
+  @Test
+  public void testProcessorAddressWindow() {
+    SharedMemory memory = new SharedMemory(2);
+    Processor writer = new Processor();
+    writer.setBus(memory.getAttachment(0));
+    writer.load(Arrays.asList("mov [64], 7", "mov [b + 65], 9", "mov a, [64]", "mov [0], 1", "hlt"));
+    Processor reader = new Processor();
+    reader.setBus(memory.getAttachment(1));
+    reader.load(Arrays.asList("mov a, [64]", "mov a, [64]", "mov b, [65]"));
+
+    writer.run(5);
+    reader.run(1);
+    Assert.assertEquals(7, writer.registers[Register.A.ordinal()]);
+    Assert.assertEquals(1, writer.stack[0]);
+    Assert.assertEquals(0, reader.registers[Register.A.ordinal()]);
+
+    memory.commit();
+    reader.run(2);
+    Assert.assertEquals(7, reader.registers[Register.A.ordinal()]);
+    Assert.assertEquals(9, reader.registers[Register.B.ordinal()]);
+  }
+
+  @Test
+  public void testAddressAboveStackFaultsWithoutBus() {
+    Processor processor = new Processor();
+    processor.load(Arrays.asList("mov [64], 7"));
+    processor.run(1);
+    Assert.assertTrue(processor.isFault());
+  }
+}
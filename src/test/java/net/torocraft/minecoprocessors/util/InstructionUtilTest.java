@@ -205,6 +205,17 @@ public class InstructionUtilTest {
     testParseCompile("ret", "ret");
     testParseCompile("Jc   test", "jc test");
     testParseCompile("djnz A,test", "djnz a, test");
+    testParseCompile("vec PB,test", "vec pb, test");
+    testParseCompile("iret", "iret");
+    testParseCompile("edg A, pb", "edg a, pb");
+    testParseCompile("fork test", "fork test");
+    testParseCompile("TAS [a]", "tas [a]");
+    testParseCompile("xchg A, [b]", "xchg a, [b]");
+    testParseCompile("mov [a:b], 5", "mov [a:b], 5");
+    testParseCompile("mov D, [c : d+2]", "mov d, [c:d+2]");
+    testParseCompile("MOVS a, 16", "movs a, 16");
+    testParseCompile("scas b, 0", "scas b, 0");
+    testParseCompile("movs [c:d], [a:b+4]", "movs [c:d], [a:b+4]");
     testParseCompile("jnc test ", "jnc test");
     testParseCompile("ROR a, 5", "ror a, 5");
     testParseCompile("ROL pf, 1 ", "rol pf, 1");